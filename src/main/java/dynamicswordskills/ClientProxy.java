@@ -22,6 +22,7 @@ import dynamicswordskills.client.DSSKeyHandler;
 import dynamicswordskills.client.RenderEntitySwordBeam;
 import dynamicswordskills.client.RenderNothing;
 import dynamicswordskills.client.TargetingTickHandler;
+import dynamicswordskills.entity.DirtyEntityAccessor;
 import dynamicswordskills.entity.EntityLeapingBlow;
 import dynamicswordskills.entity.EntitySwordBeam;
 import dynamicswordskills.item.IModItem;
@@ -46,6 +47,7 @@ public class ClientProxy extends CommonProxy
 		MinecraftForge.EVENT_BUS.register(new TargetingTickHandler());
 		RenderingRegistry.registerEntityRenderingHandler(EntityLeapingBlow.class, new RenderNothing.Factory());
 		RenderingRegistry.registerEntityRenderingHandler(EntitySwordBeam.class, new RenderEntitySwordBeam.Factory());
+		DirtyEntityAccessor.ClientHandles.initialize();
 	}
 
 	@Override
@@ -17,54 +17,43 @@
 
 package dynamicswordskills;
 
-import java.util.HashMap;
-import java.util.Map;
+import javax.annotation.Nullable;
 
-import dynamicswordskills.api.IMetadataSkillItem;
-import dynamicswordskills.api.IRandomSkill;
 import dynamicswordskills.entity.DSSPlayerInfo;
+import dynamicswordskills.entity.SkillTickManager;
+import dynamicswordskills.loot.MobDropTable;
+import dynamicswordskills.loot.SkillSampler;
 import dynamicswordskills.network.PacketDispatcher;
 import dynamicswordskills.network.client.SyncConfigPacket;
 import dynamicswordskills.ref.Config;
 import dynamicswordskills.ref.ModSounds;
 import dynamicswordskills.skills.IComboSkill;
 import dynamicswordskills.skills.SkillBase;
-import dynamicswordskills.skills.Skills;
+import dynamicswordskills.util.TickWatchdog;
+import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.entity.item.EntityItem;
-import net.minecraft.entity.monster.EntityBlaze;
-import net.minecraft.entity.monster.EntityCaveSpider;
-import net.minecraft.entity.monster.EntityCreeper;
-import net.minecraft.entity.monster.EntityEnderman;
-import net.minecraft.entity.monster.EntityGhast;
-import net.minecraft.entity.monster.EntityIronGolem;
-import net.minecraft.entity.monster.EntityMagmaCube;
-import net.minecraft.entity.monster.EntityPigZombie;
-import net.minecraft.entity.monster.EntitySilverfish;
-import net.minecraft.entity.monster.EntitySkeleton;
-import net.minecraft.entity.monster.EntitySlime;
-import net.minecraft.entity.monster.EntitySpider;
-import net.minecraft.entity.monster.EntityWitch;
-import net.minecraft.entity.monster.EntityZombie;
-import net.minecraft.entity.passive.EntityBat;
-import net.minecraft.entity.passive.EntityHorse;
-import net.minecraft.entity.passive.EntityOcelot;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.player.EntityPlayerMP;
-import net.minecraft.item.ItemStack;
 import net.minecraft.util.SoundCategory;
 import net.minecraftforge.event.entity.EntityJoinWorldEvent;
 import net.minecraftforge.event.entity.living.LivingAttackEvent;
 import net.minecraftforge.event.entity.living.LivingDropsEvent;
-import net.minecraftforge.event.entity.living.LivingEvent.LivingUpdateEvent;
 import net.minecraftforge.event.entity.living.LivingFallEvent;
 import net.minecraftforge.event.entity.living.LivingHurtEvent;
 import net.minecraftforge.event.entity.player.PlayerEvent;
 import net.minecraftforge.event.entity.player.PlayerFlyableFallEvent;
 import net.minecraftforge.event.entity.player.PlayerInteractEvent.RightClickItem;
+import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.fml.common.eventhandler.EventPriority;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 import net.minecraftforge.fml.common.gameevent.PlayerEvent.PlayerLoggedInEvent;
+import net.minecraftforge.fml.common.gameevent.PlayerEvent.PlayerLoggedOutEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
+import net.minecraftforge.fml.common.gameevent.TickEvent.PlayerTickEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.ServerTickEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.WorldTickEvent;
+import net.minecraftforge.fml.relauncher.Side;
 
 /**
  * 
@@ -73,68 +62,44 @@ import net.minecraftforge.fml.common.gameevent.PlayerEvent.PlayerLoggedInEvent;
  */
 public class DSSCombatEvents
 {
-	/** Mapping of mobs to skill orb drops */
-	private static final Map<Class<? extends EntityLivingBase>, ItemStack> dropsList = new HashMap<Class<? extends EntityLivingBase>, ItemStack>();
-
-	/** Adds a mob-class to skill orb mapping */
-	private static void addDrop(Class<? extends EntityLivingBase> mobClass, SkillBase skill) {
-		int damage = ((IMetadataSkillItem) DynamicSwordSkills.skillOrb).getItemDamage(skill);
-		if (damage > -1) {
-			ItemStack stack = new ItemStack(DynamicSwordSkills.skillOrb, 1, damage);
-			dropsList.put(mobClass, stack);
-		}
-	}
-
-	public static void initializeDrops() {
-		addDrop(EntityZombie.class, Skills.swordBasic);
-		addDrop(EntitySkeleton.class, Skills.swordBasic);
-		addDrop(EntityEnderman.class, Skills.dodge);
-		addDrop(EntitySilverfish.class, Skills.backSlice);
-		addDrop(EntitySlime.class, Skills.dash);
-		addDrop(EntityHorse.class, Skills.dash);
-		addDrop(EntityPigZombie.class, Skills.parry);
-		addDrop(EntityOcelot.class, Skills.mortalDraw);
-		addDrop(EntitySpider.class, Skills.endingBlow);
-		addDrop(EntityCaveSpider.class, Skills.leapingBlow);
-		addDrop(EntityMagmaCube.class, Skills.leapingBlow);
-		addDrop(EntityBlaze.class, Skills.spinAttack);
-		addDrop(EntityBat.class, Skills.risingCut);
-		addDrop(EntityCreeper.class, Skills.armorBreak);
-		addDrop(EntityIronGolem.class, Skills.swordBreak);
-		addDrop(EntityGhast.class, Skills.superSpinAttack);
-		addDrop(EntityWitch.class, Skills.swordBeam);
-	}
+	/**
+	 * The LivingHurtEvent most recently seen by {@link #onHurt} and the attacker and victim information resolved for it,
+	 * reused by {@link #onPostHurt} for the same event; LivingHurtEvent is only posted on the server thread
+	 */
+	private LivingHurtEvent hurtEvent;
+	private DSSPlayerInfo hurtAttacker, hurtVictim;
 
 	/**
-	 * Returns the type of skill orb that the mob will drop this time;
-	 * this is not always the same as the stack stored in dropsList
+	 * Returns the skill orb drop that the mob will drop this time, if any: usually one of its specific
+	 * {@link MobDropTable} entries, but sometimes a random one
 	 */
-	private static ItemStack getOrbDrop(EntityLivingBase mob) {
-		if (dropsList.get(mob.getClass()) != null && mob.getEntityWorld().rand.nextFloat() > Config.getChanceForRandomDrop()) {
-			return dropsList.get(mob.getClass());
+	@Nullable
+	private static MobDropTable.Entry getOrbDrop(EntityLivingBase mob) {
+		MobDropTable.Drops drops = MobDropTable.get().getDrops(mob);
+		if (drops != null && mob.getEntityWorld().rand.nextFloat() > Config.getChanceForRandomDrop()) {
+			return drops.pick(mob.getEntityWorld().rand);
 		}
-		ItemStack orb = ItemStack.EMPTY;
 		boolean flag = mob instanceof EntityPlayer;
-		SkillBase skill = ((IRandomSkill) DynamicSwordSkills.skillOrb).getRandomSkill(mob.getEntityWorld().rand);
-		if (Config.isSkillAllowed(skill) && (!flag || Config.arePlayerDropsEnabled())) {
-			int damage = ((IMetadataSkillItem) DynamicSwordSkills.skillOrb).getItemDamage(skill);
+		if (!flag || Config.arePlayerDropsEnabled()) {
 			float chance = (flag ? Config.getPlayerDropFactor() : 1) * Config.getRandomMobDropChance();
-			if (damage > -1 && (dropsList.get(mob.getClass()) != null || mob.getEntityWorld().rand.nextFloat() < chance)) {
-				orb = new ItemStack(DynamicSwordSkills.skillOrb, 1, damage);
+			if (drops != null || mob.getEntityWorld().rand.nextFloat() < chance) {
+				SkillSampler sampler = SkillSampler.get();
+				SkillBase skill = sampler.drawOrbSkill(mob.getEntityWorld().rand);
+				return (skill == null ? null : MobDropTable.createEntry(skill, sampler.getOrbDropChance()));
 			}
 		}
-		return orb;
+		return null;
 	}
 
 	@SubscribeEvent
 	public void onLivingDrops(LivingDropsEvent event) {
 		if (event.getSource().getTrueSource() instanceof EntityPlayer) {
 			EntityLivingBase mob = event.getEntityLiving();
-			ItemStack orb = getOrbDrop(mob);
-			if (!orb.isEmpty() && (Config.areOrbDropsEnabled() || (Config.arePlayerDropsEnabled() && event.getEntity() instanceof EntityPlayer))) {
-				float baseChance = Config.getDropChance(orb.getItemDamage());
+			MobDropTable.Entry orb = getOrbDrop(mob);
+			if (orb != null && (Config.areOrbDropsEnabled() || (Config.arePlayerDropsEnabled() && event.getEntity() instanceof EntityPlayer))) {
+				float baseChance = orb.getChance();
 				if (baseChance > 0.0F && mob.getEntityWorld().rand.nextFloat() < (baseChance + (0.005F * event.getLootingLevel()))) {
-					event.getDrops().add(new EntityItem(mob.getEntityWorld(), mob.posX, mob.posY, mob.posZ, orb.copy()));
+					event.getDrops().add(new EntityItem(mob.getEntityWorld(), mob.posX, mob.posY, mob.posZ, orb.getOrb()));
 					mob.getEntityWorld().playSound(null, mob.posX, mob.posY, mob.posZ, ModSounds.SPECIAL_DROP, SoundCategory.PLAYERS, 1.0F, 1.0F);
 				}
 			}
@@ -155,28 +120,58 @@ public class DSSCombatEvents
 		}
 	}
 
+	/**
+	 * Returns the player's information only if the player may have an active skill or combo in progress,
+	 * checking the global {@link DSSPlayerInfo#isAnyHookStateSet} count before looking up the capability
+	 */
+	@Nullable
+	private static DSSPlayerInfo getHookedInfo(@Nullable Entity entity) {
+		if (!(entity instanceof EntityPlayer) || !DSSPlayerInfo.isAnyHookStateSet(entity.getEntityWorld())) {
+			return null;
+		}
+		DSSPlayerInfo info = DSSPlayerInfo.get((EntityPlayer) entity);
+		return (info != null && info.hasHookState() ? info : null);
+	}
+
 	/**
 	 * This event is called when an entity is attacked by another entity; it is only
 	 * called on the server unless the source of the attack is an EntityPlayer
 	 */
 	@SubscribeEvent
 	public void onAttacked(LivingAttackEvent event) {
-		if (event.getSource().getTrueSource() instanceof EntityPlayer) {
-			DSSPlayerInfo.get((EntityPlayer) event.getSource().getTrueSource()).onAttack(event);
+		boolean isServer = !event.getEntity().getEntityWorld().isRemote;
+		long start = (isServer ? TickWatchdog.start() : 0L);
+		DSSPlayerInfo info = getHookedInfo(event.getSource().getTrueSource());
+		if (info != null) {
+			info.onAttack(event);
 		}
-		if (!event.isCanceled() && event.getEntity() instanceof EntityPlayer) {
-			DSSPlayerInfo.get((EntityPlayer) event.getEntity()).onBeingAttacked(event);
+		info = (event.isCanceled() ? null : getHookedInfo(event.getEntity()));
+		if (info != null) {
+			info.onBeingAttacked(event);
+		}
+		if (isServer) {
+			TickWatchdog.stop(start);
 		}
 	}
 
 	@SubscribeEvent(priority=EventPriority.NORMAL)
 	public void onHurt(LivingHurtEvent event) {
+		long start = TickWatchdog.start();
+		DSSPlayerInfo attacker = getHookedInfo(event.getSource().getTrueSource());
+		DSSPlayerInfo victim = getHookedInfo(event.getEntity());
 		if (event.getSource().getTrueSource() instanceof EntityPlayer) {
-			DSSPlayerInfo.get((EntityPlayer) event.getSource().getTrueSource()).onImpact(event);
+			if (attacker != null) {
+				attacker.onImpact(event);
+			}
 			if (event.getAmount() <= 0.0F) {
 				event.setCanceled(true);
 			}
 		}
+		// Set afterwards, as onImpact may cause further hurt events
+		hurtEvent = event;
+		hurtAttacker = attacker;
+		hurtVictim = victim;
+		TickWatchdog.stop(start);
 	}
 
 	/**
@@ -184,25 +179,81 @@ public class DSSCombatEvents
 	 */
 	@SubscribeEvent(priority=EventPriority.LOWEST)
 	public void onPostHurt(LivingHurtEvent event) {
-		if (!event.isCanceled() && event.getAmount() > 0.0F && event.getEntity() instanceof EntityPlayer) {
-			EntityPlayer player = (EntityPlayer) event.getEntity();
-			IComboSkill combo = DSSPlayerInfo.get(player).getComboSkill();
+		// Information resolved by onHurt is only valid for that same event
+		boolean resolved = (event == hurtEvent);
+		DSSPlayerInfo attacker = (resolved ? hurtAttacker : null);
+		DSSPlayerInfo victim = (resolved ? hurtVictim : null);
+		hurtEvent = null;
+		hurtAttacker = null;
+		hurtVictim = null;
+		if (event.isCanceled() || event.getAmount() <= 0.0F) {
+			return;
+		}
+		long start = TickWatchdog.start();
+		if (victim == null) {
+			victim = getHookedInfo(event.getEntity());
+		}
+		if (victim != null) {
+			IComboSkill combo = victim.getComboSkill();
 			if (combo != null && event.getAmount() > 0) {
-				combo.onPlayerHurt(player, event);
+				combo.onPlayerHurt(victim.getPlayer(), event);
 			}
 		}
-		if (!event.isCanceled() && event.getAmount() > 0.0F && event.getSource().getTrueSource() instanceof EntityPlayer) {
-			DSSPlayerInfo.get((EntityPlayer) event.getSource().getTrueSource()).onPostImpact(event);
+		if (!event.isCanceled() && event.getAmount() > 0.0F) {
+			if (attacker == null) {
+				attacker = getHookedInfo(event.getSource().getTrueSource());
+			}
+			if (attacker != null) {
+				attacker.onPostImpact(event);
+			}
 		}
+		TickWatchdog.stop(start);
 	}
 
+	/**
+	 * Drops departed skill holders from each server world before its entities are updated, and records the positions
+	 * of entities near reach attackers after they have moved; client worlds are ticked from DSSClientEvents#onClientTick
+	 */
 	@SubscribeEvent
-	public void onLivingUpdate(LivingUpdateEvent event) {
-		if (event.getEntity() instanceof EntityPlayer) {
-			DSSPlayerInfo.get((EntityPlayer) event.getEntity()).onUpdate();
+	public void onWorldTick(WorldTickEvent event) {
+		if (event.phase == Phase.START && event.side == Side.SERVER) {
+			long start = TickWatchdog.start();
+			SkillTickManager.pruneWorld(event.world);
+			TickWatchdog.stop(start);
+		} else if (event.phase == Phase.END && event.side == Side.SERVER) {
+			SkillTickManager.evaluateWorldQueries(event.world);
+			long start = TickWatchdog.start();
+			SkillTickManager.recordWorldPositions(event.world);
+			TickWatchdog.stop(start);
+		}
+	}
+
+	/**
+	 * Updates each server player's skills at the start of the player's own update, in the network tick after the
+	 * worlds have ticked, which is where LivingUpdateEvent used to fire for players
+	 */
+	@SubscribeEvent
+	public void onPlayerTick(PlayerTickEvent event) {
+		if (event.phase == Phase.START && event.side == Side.SERVER) {
+			long start = TickWatchdog.start();
+			SkillTickManager.tickPlayer(event.player);
+			TickWatchdog.stop(start);
+		}
+	}
+
+	@SubscribeEvent
+	public void onServerTick(ServerTickEvent event) {
+		if (event.phase == Phase.END) {
+			PacketDispatcher.flushQueued();
+			TickWatchdog.onServerTickEnd();
 		}
 	}
 
+	@SubscribeEvent
+	public void onWorldUnload(WorldEvent.Unload event) {
+		SkillTickManager.remove(event.getWorld());
+	}
+
 	@SubscribeEvent
 	public void onPlayerLoggedIn(PlayerLoggedInEvent event) {
 		DSSPlayerInfo.get(event.player).onPlayerLoggedIn();
@@ -215,12 +266,19 @@ public class DSSCombatEvents
 	public void onEntityJoinWorld(EntityJoinWorldEvent event) {
 		if (event.getEntity() instanceof EntityPlayer) {
 			DSSPlayerInfo.get((EntityPlayer) event.getEntity()).onJoinWorld();
+			SkillTickManager.onPlayerJoinWorld((EntityPlayer) event.getEntity(), event.getWorld());
 		}
 	}
 
 	@SubscribeEvent
 	public void onClonePlayer(PlayerEvent.Clone event) {
 		DSSPlayerInfo.get(event.getEntityPlayer()).copy(DSSPlayerInfo.get(event.getOriginal()));
+		DSSPlayerInfo.invalidate(event.getOriginal());
+	}
+
+	@SubscribeEvent
+	public void onPlayerLoggedOut(PlayerLoggedOutEvent event) {
+		DSSPlayerInfo.invalidate(event.player);
 	}
 
 	/**
@@ -228,13 +286,17 @@ public class DSSCombatEvents
 	 */
 	@SubscribeEvent
 	public void onFall(LivingFallEvent event) {
-		if (event.getEntity() instanceof EntityPlayer) {
-			DSSPlayerInfo.get((EntityPlayer) event.getEntity()).onFall(event);
+		DSSPlayerInfo info = getHookedInfo(event.getEntity());
+		if (info != null) {
+			info.onFall(event);
 		}
 	}
 
 	@SubscribeEvent
 	public void onCreativeFall(PlayerFlyableFallEvent event) {
-		DSSPlayerInfo.get(event.getEntityPlayer()).onCreativeFall(event);
+		DSSPlayerInfo info = getHookedInfo(event.getEntityPlayer());
+		if (info != null) {
+			info.onCreativeFall(event);
+		}
 	}
 }
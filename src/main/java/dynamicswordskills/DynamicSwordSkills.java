@@ -28,6 +28,7 @@ import dynamicswordskills.api.ItemSkillProvider;
 import dynamicswordskills.api.SkillRegistry;
 import dynamicswordskills.command.DSSCommands;
 import dynamicswordskills.crafting.RecipeInfuseSkillOrb;
+import dynamicswordskills.entity.DirtyEntityAccessor;
 import dynamicswordskills.entity.EntityLeapingBlow;
 import dynamicswordskills.entity.EntitySwordBeam;
 import dynamicswordskills.entity.IPlayerInfo.CapabilityPlayerInfo;
@@ -39,6 +40,7 @@ import dynamicswordskills.ref.ModInfo;
 import dynamicswordskills.skills.SkillActive;
 import dynamicswordskills.skills.SkillBase;
 import dynamicswordskills.skills.Skills;
+import dynamicswordskills.util.CombatLog;
 import net.minecraft.creativetab.CreativeTabs;
 import net.minecraft.entity.Entity;
 import net.minecraft.item.Item;
@@ -58,6 +60,7 @@ import net.minecraftforge.fml.common.event.FMLInterModComms;
 import net.minecraftforge.fml.common.event.FMLPostInitializationEvent;
 import net.minecraftforge.fml.common.event.FMLPreInitializationEvent;
 import net.minecraftforge.fml.common.event.FMLServerStartingEvent;
+import net.minecraftforge.fml.common.event.FMLServerStoppingEvent;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 import net.minecraftforge.fml.common.network.NetworkRegistry;
 import net.minecraftforge.fml.common.registry.EntityEntry;
@@ -143,7 +146,7 @@ public class DynamicSwordSkills
 	public void init(FMLInitializationEvent event) {
 		proxy.init();
 		MinecraftForge.EVENT_BUS.register(new DSSCombatEvents());
-		DSSCombatEvents.initializeDrops();
+		DirtyEntityAccessor.initialize();
 		NetworkRegistry.INSTANCE.registerGuiHandler(this, proxy);
 	}
 
@@ -156,6 +159,12 @@ public class DynamicSwordSkills
 	@Mod.EventHandler
 	public void onServerStarting(FMLServerStartingEvent event) {
 		DSSCommands.registerCommands(event);
+		CombatLog.start(event.getServer().getFile("logs/dss-combat"));
+	}
+
+	@Mod.EventHandler
+	public void onServerStopping(FMLServerStoppingEvent event) {
+		CombatLog.stop();
 	}
 
 	@Mod.EventHandler
@@ -24,9 +24,8 @@ import javax.annotation.Nullable;
 
 import dynamicswordskills.DynamicSwordSkills;
 import dynamicswordskills.item.IModItem;
-import dynamicswordskills.loot.functions.SkillFunction;
+import dynamicswordskills.loot.SkillSampler;
 import dynamicswordskills.ref.ModInfo;
-import dynamicswordskills.skills.SkillActive;
 import dynamicswordskills.skills.SkillBase;
 import dynamicswordskills.skills.Skills;
 import net.minecraft.client.Minecraft;
@@ -75,8 +74,7 @@ public class ItemRandomSkill extends ItemSword implements IModItem, IRandomSkill
 
 	@Override
 	public SkillBase getRandomSkill(Random rand) {
-		SkillBase skill = SkillFunction.getRandomSkill(rand);
-		return (skill instanceof SkillActive ? skill : null);
+		return SkillSampler.get().drawActiveSkill(rand);
 	}
 
 	@Override
@@ -25,6 +25,7 @@ import dynamicswordskills.client.gui.ComboOverlay;
 import dynamicswordskills.client.gui.GuiEndingBlowOverlay;
 import dynamicswordskills.client.gui.IGuiOverlay;
 import dynamicswordskills.entity.DSSPlayerInfo;
+import dynamicswordskills.entity.SkillTickManager;
 import dynamicswordskills.skills.IComboSkill;
 import net.minecraft.client.Minecraft;
 import net.minecraft.util.EnumHand;
@@ -32,6 +33,9 @@ import net.minecraft.util.math.RayTraceResult;
 import net.minecraftforge.client.event.MouseEvent;
 import net.minecraftforge.client.event.RenderGameOverlayEvent;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.ClientTickEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
+import net.minecraftforge.fml.common.network.FMLNetworkEvent.ClientDisconnectionFromServerEvent;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 
@@ -57,6 +61,24 @@ public class DSSClientEvents
 		overlays.add(new GuiEndingBlowOverlay(mc));
 	}
 
+	/**
+	 * Updates all skill holders in the client world before its entities are updated, i.e. only while the game is not paused
+	 */
+	@SubscribeEvent
+	public void onClientTick(ClientTickEvent event) {
+		if (event.phase == Phase.START && mc.world != null && !mc.isGamePaused()) {
+			SkillTickManager.tickWorld(mc.world);
+		}
+	}
+
+	/**
+	 * Drops cached client player info once the connection closes; fired on the network thread
+	 */
+	@SubscribeEvent
+	public void onClientDisconnect(ClientDisconnectionFromServerEvent event) {
+		DSSPlayerInfo.invalidateClient();
+	}
+
 	@SubscribeEvent
 	public void onRenderExperienceBar(RenderGameOverlayEvent.Post event) {
 		if (event.getType() != RenderGameOverlayEvent.ElementType.EXPERIENCE) {
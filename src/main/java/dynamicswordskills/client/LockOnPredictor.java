@@ -0,0 +1,234 @@
+/**
+    Copyright (C) <2017> <coolAlias>
+
+    This file is part of coolAlias' Dynamic Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package dynamicswordskills.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Supplier;
+
+import dynamicswordskills.util.TargetUtils;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityLivingBase;
+import net.minecraft.util.math.MathHelper;
+
+/**
+ *
+ * Predicts the next lock-on target in the background so that auto-targeting does not have to
+ * run a full look query on the client tick at the moment the current target is lost.
+ *
+ * The set of nearby candidates is only looked up every few ticks; on every other tick the client
+ * thread just copies the ids and positions of those candidates into a primitive snapshot. A worker
+ * thread then ranks the candidates in front of the player by distance, and the client thread only
+ * reads back the resulting entity ids, re-validating each one (including line of sight) before use.
+ *
+ * Not annotated client-only so that it may be referenced by common skill classes, but it must
+ * only ever be used from the client thread.
+ *
+ */
+public class LockOnPredictor
+{
+	/** Shared daemon worker; predictions are tiny, so a single thread serves every predictor */
+	private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor((r) -> {
+		Thread thread = new Thread(r, "DSS Lock-On Predictor");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/** Field of view used for predictions, matching that of the look target queries */
+	private static final float FOV = 60.0F;
+
+	/** Number of ticks between lookups of the candidate entities; positions are still copied every tick */
+	private static final int CANDIDATE_REFRESH_INTERVAL = 10;
+
+	/** Predictions older than this many ticks are discarded */
+	private static final int MAX_PREDICTION_AGE = 5;
+
+	/** Maximum number of ranked candidates returned by each prediction */
+	private static final int MAX_PREDICTIONS = 4;
+
+	/** Nearby entities that passed the target selectors when last looked up; client thread only */
+	private final List<EntityLivingBase> candidates = new ArrayList<EntityLivingBase>();
+
+	/** Value of {@link Entity#ticksExisted} for the seeker when {@link #candidates} was last looked up */
+	private int candidateTick;
+
+	/** True if {@link #candidates} must be looked up again regardless of {@link #candidateTick} */
+	private boolean candidatesStale = true;
+
+	private final Snapshot snapshot = new Snapshot();
+
+	/** Task computing a prediction from {@link #snapshot}; the snapshot may only be written while this is done */
+	private Future<?> pending;
+
+	/** Entity ids of the predicted targets, nearest first, or null if there is no prediction */
+	private volatile int[] predictedIds;
+
+	/** Value of {@link Entity#ticksExisted} for the seeker when the snapshot for {@link #predictedIds} was taken */
+	private volatile int predictedTick;
+
+	/**
+	 * Copies the positions of the nearby candidates and submits them for prediction,
+	 * unless the previous prediction is still being computed
+	 * @param current The current target, which will be excluded from the prediction
+	 * @param range   Maximum distance from the seeker for a candidate to be included
+	 * @param filters Supplies the target selectors; only called when the candidates are looked up
+	 */
+	public void update(EntityLivingBase seeker, @Nullable Entity current, double range, Supplier<List<Predicate<Entity>>> filters) {
+		if (pending != null && !pending.isDone()) {
+			return;
+		}
+		if (candidatesStale || seeker.ticksExisted - candidateTick >= CANDIDATE_REFRESH_INTERVAL) {
+			refreshCandidates(seeker, range, filters.get());
+		}
+		snapshot.clear(candidates.size());
+		snapshot.tick = seeker.ticksExisted;
+		snapshot.x = seeker.posX;
+		snapshot.y = seeker.posY;
+		snapshot.z = seeker.posZ;
+		snapshot.yaw = seeker.rotationYaw;
+		snapshot.rangeSq = range * range;
+		for (EntityLivingBase entity : candidates) {
+			if (entity != current && !entity.isDead) {
+				snapshot.add(entity);
+			}
+		}
+		pending = EXECUTOR.submit(this::predict);
+	}
+
+	private void refreshCandidates(EntityLivingBase seeker, double range, List<Predicate<Entity>> filters) {
+		candidates.clear();
+		// Grown by a little extra so that entities moving into range before the next lookup are still included
+		List<EntityLivingBase> list = seeker.getEntityWorld().getEntitiesWithinAABB(EntityLivingBase.class, seeker.getEntityBoundingBox().grow(range + 2.0D));
+		for (EntityLivingBase entity : list) {
+			if (TargetUtils.isTargetValid(entity, seeker, filters)) {
+				candidates.add(entity);
+			}
+		}
+		candidateTick = seeker.ticksExisted;
+		candidatesStale = false;
+	}
+
+	/** Runs on the worker thread */
+	private void predict() {
+		Snapshot s = snapshot;
+		double cos = TargetUtils.getFovCosine(FOV);
+		float yaw = s.yaw * 0.017453292F;
+		double fx = -MathHelper.sin(yaw);
+		double fz = MathHelper.cos(yaw);
+		int[] ids = new int[MAX_PREDICTIONS];
+		double[] distances = new double[MAX_PREDICTIONS];
+		int n = 0;
+		for (int i = 0; i < s.size; ++i) {
+			double d = s.distances[i];
+			if (d >= s.rangeSq || !TargetUtils.isInFrontOf(s.xs[i] - s.x, s.zs[i] - s.z, fx, fz, cos)) {
+				continue;
+			}
+			// insertion into the short ranked list, dropping the farthest once full
+			if (n == MAX_PREDICTIONS && distances[n - 1] <= d) {
+				continue;
+			}
+			int j = (n < MAX_PREDICTIONS ? n++ : n - 1);
+			while (j > 0 && distances[j - 1] > d) {
+				ids[j] = ids[j - 1];
+				distances[j] = distances[j - 1];
+				--j;
+			}
+			ids[j] = s.ids[i];
+			distances[j] = d;
+		}
+		int[] result = new int[n];
+		System.arraycopy(ids, 0, result, 0, n);
+		predictedTick = s.tick;
+		predictedIds = result;
+	}
+
+	/**
+	 * Returns the nearest predicted target that is recent and still passes the validator, otherwise null.
+	 * The prediction is consumed either way.
+	 * @param validator Called on the client thread; should check at least health, range and line of sight
+	 */
+	@Nullable
+	public EntityLivingBase consume(EntityLivingBase seeker, Predicate<EntityLivingBase> validator) {
+		int[] ids = predictedIds;
+		predictedIds = null;
+		if (ids == null || seeker.ticksExisted - predictedTick > MAX_PREDICTION_AGE) {
+			return null;
+		}
+		for (int id : ids) {
+			Entity entity = seeker.getEntityWorld().getEntityByID(id);
+			if (entity instanceof EntityLivingBase && validator.apply((EntityLivingBase) entity)) {
+				return (EntityLivingBase) entity;
+			}
+		}
+		return null;
+	}
+
+	/** Discards any prediction and the looked up candidates, e.g. when lock-on ends */
+	public void reset() {
+		predictedIds = null;
+		candidates.clear();
+		candidatesStale = true;
+	}
+
+	/**
+	 * Primitive copy of the candidate positions; written only on the client thread while no prediction
+	 * is pending, and read only by the worker thread. {@link ExecutorService#submit} publishes the writes.
+	 */
+	private static class Snapshot
+	{
+		private int tick;
+		private double x;
+		private double y;
+		private double z;
+		private float yaw;
+		private double rangeSq;
+		private int size;
+		private int[] ids = new int[16];
+		private double[] xs = new double[16];
+		private double[] zs = new double[16];
+		private double[] distances = new double[16];
+
+		private void clear(int capacity) {
+			size = 0;
+			if (ids.length < capacity) {
+				ids = new int[capacity];
+				xs = new double[capacity];
+				zs = new double[capacity];
+				distances = new double[capacity];
+			}
+		}
+
+		private void add(EntityLivingBase entity) {
+			ids[size] = entity.getEntityId();
+			xs[size] = entity.posX;
+			zs[size] = entity.posZ;
+			double dx = entity.posX - x;
+			double dy = entity.posY - y;
+			double dz = entity.posZ - z;
+			distances[size] = dx * dx + dy * dy + dz * dz;
+			++size;
+		}
+	}
+}
@@ -17,8 +17,6 @@
 
 package dynamicswordskills.client.gui;
 
-import java.util.List;
-
 import dynamicswordskills.entity.DSSPlayerInfo;
 import dynamicswordskills.network.PacketDispatcher;
 import dynamicswordskills.network.server.EndComboPacket;
@@ -46,8 +44,8 @@ public class ComboOverlay extends AbstractGuiOverlay
 	/** Current combo descriptors */
 	private String label, comboSize, comboDamage;
 
-	/** Used to detect changes in the combo size */
-	private int lastComboSize = 0;
+	/** Version of {@link #combo} when last checked, used to detect changes */
+	private int lastVersion;
 
 	/** Time at which the current combo first started displaying */
 	private long displayStartTime;
@@ -78,22 +76,19 @@ public class ComboOverlay extends AbstractGuiOverlay
 		}
 		IComboSkill iCombo = DSSPlayerInfo.get(mc.player).getComboSkill();
 		if (iCombo != null && iCombo.getCombo() != null) {
-			if (this.combo != iCombo.getCombo()) {
-				this.combo = iCombo.getCombo();
-				this.lastComboSize = this.combo.getNumHits();
+			Combo current = iCombo.getCombo();
+			// Updates are applied to the existing instance, so check the version as well
+			if (this.combo != current || this.lastVersion != current.getVersion()) {
+				this.combo = current;
+				this.lastVersion = current.getVersion();
 				this.displayStartTime = Minecraft.getSystemTime();
-				if (this.combo.isFinished()) {
+				if (current.isFinished()) {
 					iCombo.setCombo(null);
 					PacketDispatcher.sendToServer(new EndComboPacket((SkillBase) iCombo));
 				}
 			}
 		}
 		if (this.combo != null && this.combo.getNumHits() > 0) {
-			// If combo has changed, reset timer
-			if (this.lastComboSize != this.combo.getNumHits()) {
-				this.lastComboSize = this.combo.getNumHits();
-				this.displayStartTime = Minecraft.getSystemTime();
-			}
 			return ((Minecraft.getSystemTime() - this.displayStartTime) < Config.comboHudDisplayTime);
 		}
 		return false;
@@ -102,7 +97,7 @@ public class ComboOverlay extends AbstractGuiOverlay
 	@Override
 	protected void setup(ScaledResolution resolution) {
 		// Minimum display of 3 lines: combo name, size and damage
-		int n = Math.min(this.combo.getDamageList().size(), Config.getHitsToDisplay());
+		int n = Math.min(this.combo.getNumHits(), Config.getHitsToDisplay());
 		this.height = (n + 3) * this.mc.fontRenderer.FONT_HEIGHT;
 		this.label = new TextComponentTranslation(this.combo.isFinished() ? "combo.finished" : "combo.combo", this.combo.getLabel()).getUnformattedText();
 		this.comboSize = new TextComponentTranslation("combo.size", this.combo.getNumHits(), this.combo.getMaxNumHits()).getUnformattedText();
@@ -122,11 +117,11 @@ public class ComboOverlay extends AbstractGuiOverlay
 		this.mc.fontRenderer.drawString(this.comboSize, xPos + this.getOffset(this.comboSize), yPos, 0xFFFFFF, true);
 		yPos += this.mc.fontRenderer.FONT_HEIGHT;
 		this.mc.fontRenderer.drawString(this.comboDamage, xPos + this.getOffset(this.comboDamage), yPos, 0xFFFFFF, true);
-		List<Float> damageList = this.combo.getDamageList();
-		int n = Math.min(damageList.size(), Config.getHitsToDisplay());
+		int size = this.combo.getNumHits();
+		int n = Math.min(size, Config.getHitsToDisplay());
 		for (int i = 0; i < n; ++i) {
 			yPos += this.mc.fontRenderer.FONT_HEIGHT;
-			String s = String.format("+%.1f", damageList.get(damageList.size() - i - 1));
+			String s = String.format("+%.1f", this.combo.getHitDamage(size - i - 1));
 			this.mc.fontRenderer.drawString(s, xPos + this.getOffset(s), yPos, 0xFFFFFF, true);
 		}
 	}
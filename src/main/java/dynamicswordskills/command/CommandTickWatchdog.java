@@ -0,0 +1,73 @@
+/**
+    Copyright (C) <2017> <coolAlias>
+
+    This file is part of coolAlias' Dynamic Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package dynamicswordskills.command;
+
+import dynamicswordskills.ref.Config;
+import dynamicswordskills.util.TickWatchdog;
+import dynamicswordskills.util.TickWatchdog.Level;
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommand;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.command.WrongUsageException;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.text.TextComponentTranslation;
+
+/**
+ * 
+ * Reports the {@link TickWatchdog} metrics: DSS time per tick, current level, ticks spent at each level and work skipped or postponed
+ *
+ */
+public class CommandTickWatchdog extends CommandBase
+{
+	public static final ICommand INSTANCE = new CommandTickWatchdog();
+
+	public CommandTickWatchdog() {}
+
+	@Override
+	public String getName() {
+		return "dsswatchdog";
+	}
+
+	@Override
+	public int getRequiredPermissionLevel() {
+		return 2;
+	}
+
+	/**
+	 * dsswatchdog
+	 */
+	@Override
+	public String getUsage(ICommandSender sender) {
+		return "commands.dsswatchdog.usage";
+	}
+
+	@Override
+	public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException {
+		if (args.length > 0) {
+			throw new WrongUsageException(getUsage(sender));
+		}
+		sender.sendMessage(new TextComponentTranslation("commands.dsswatchdog.status", String.format("%.2f", TickWatchdog.getAverageTickTime()), Config.getTickBudget(), TickWatchdog.getLevel()));
+		StringBuilder levels = new StringBuilder();
+		for (Level level : Level.values()) {
+			levels.append(levels.length() > 0 ? ", " : "").append(level).append('=').append(TickWatchdog.getTicksAtLevel(level));
+		}
+		sender.sendMessage(new TextComponentTranslation("commands.dsswatchdog.levels", levels.toString()));
+		sender.sendMessage(new TextComponentTranslation("commands.dsswatchdog.counters", TickWatchdog.getSoundsSkipped(), TickWatchdog.getHudUpdatesMerged(), TickWatchdog.getAoeHitsDeferred()));
+	}
+}
@@ -21,9 +21,11 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Nullable;
 
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Sets;
 
 import dynamicswordskills.DynamicSwordSkills;
@@ -39,11 +41,14 @@ import dynamicswordskills.ref.Config;
 import dynamicswordskills.skills.IComboSkill;
 import dynamicswordskills.skills.ILockOnTarget;
 import dynamicswordskills.skills.IModifiableSkill;
+import dynamicswordskills.skills.IReachAttackSkill;
 import dynamicswordskills.skills.ISkillModifier;
 import dynamicswordskills.skills.MortalDraw;
 import dynamicswordskills.skills.SkillActive;
 import dynamicswordskills.skills.SkillBase;
 import dynamicswordskills.skills.Skills;
+import dynamicswordskills.util.CombatLog;
+import dynamicswordskills.util.PlayerUtils;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.settings.KeyBinding;
 import net.minecraft.entity.player.EntityPlayer;
@@ -52,7 +57,9 @@ import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
 import net.minecraft.nbt.NBTTagString;
+import net.minecraft.network.PacketBuffer;
 import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.World;
 import net.minecraftforge.common.capabilities.Capability.IStorage;
 import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.event.entity.living.LivingAttackEvent;
@@ -110,6 +117,40 @@ public class DSSPlayerInfo
 	/** Whether the player has received the starting bonus gear or not yet */
 	private boolean receivedGear = false;
 
+	/**
+	 * Sequence number of the most recent lock-on target change sent (client) or accepted (server); kept here
+	 * rather than in the skill, as the client's skill instances are replaced whenever they are synchronized
+	 */
+	private int targetSequence;
+
+	/**
+	 * Resolved instances for {@link #get}, indexed by {@link #getSideIndex} so the client and integrated server never share entries.
+	 * Entity equality compares entity ids, so weak keys are matched by player identity instead; a respawned clone is a new
+	 * object and never picks up the original's entry. Values are weak as well, since each instance refers to its player.
+	 */
+	private static final Map<EntityPlayer, DSSPlayerInfo>[] CACHE = newCaches();
+
+	/** Number of players with {@link #hasHookState} set, indexed by {@link #getSideIndex} */
+	private static final AtomicInteger[] HOOK_STATE_COUNT = { new AtomicInteger(), new AtomicInteger() };
+
+	/**
+	 * True if the player may have an active skill or a combo in progress, i.e. something that may react to combat events;
+	 * set as soon as a skill activates and only cleared once nothing is found to be active
+	 */
+	private boolean hasHookState;
+
+	private static final SkillActive[] NO_HURT_HANDLERS = new SkillActive[0];
+
+	/**
+	 * Skills whose {@link SkillActive#onImpact} and {@link SkillActive#postImpact} handle this player's LivingHurtEvents,
+	 * in dispatch order: learned skills, then the item skill, then the dummy sword skill. Compiled from the skills active
+	 * when the set last changed so that neither event pass has to search all of the player's skills.
+	 */
+	private SkillActive[] hurtHandlers = NO_HURT_HANDLERS;
+
+	/** Set when the handlers must be compiled again before the next use, e.g. when a skill activates */
+	private boolean hurtHandlersDirty;
+
 	/** Used by certain skills for controlling the player's main arm rendering; set to 0.0F for vanilla behavior */
 	public float swingProgress = 0.0F;
 
@@ -165,6 +206,16 @@ public class DSSPlayerInfo
 		this.useItemCooldown = MathHelper.clamp(ticks, useItemCooldown, MAX_CLICK_COOLDOWN);
 	}
 
+	/** Returns the sequence number of the most recent lock-on target change sent (client) or accepted (server) */
+	public int getTargetSequence() {
+		return targetSequence;
+	}
+
+	/** Sets the lock-on target sequence number; reset to 0 on both sides each time lock-on is activated */
+	public void setTargetSequence(int sequence) {
+		this.targetSequence = sequence;
+	}
+
 	/**
 	 * Sets the current and previous arm swing amount; used by some skills for rendering the player's arm position
 	 * @param current  See {@link #swingProgress}
@@ -205,6 +256,7 @@ public class DSSPlayerInfo
 		skills.put(dummy.getId(), dummy);
 		validateSkills();
 		skills.remove(dummy.getId());
+		hurtHandlersDirty = true;
 		if (player instanceof EntityPlayerMP) {
 			PacketDispatcher.sendTo(new SyncSkillPacket(dummy), (EntityPlayerMP) player);
 		}
@@ -220,6 +272,7 @@ public class DSSPlayerInfo
 		}
 		validateSkills();
 		skills.clear();
+		hurtHandlersDirty = true;
 		if (player instanceof EntityPlayerMP) {
 			PacketDispatcher.sendTo(new SyncPlayerInfoPacket(this).setReset(), (EntityPlayerMP) player);
 		}
@@ -423,20 +476,22 @@ public class DSSPlayerInfo
 	 * currently active skill, potentially altering the value of event.amount
 	 */
 	public void onImpact(LivingHurtEvent event) {
-		for (SkillBase skill : skills.values()) {
+		SkillActive[] handlers = getHurtHandlers();
+		for (int i = 0; i < handlers.length; ++i) {
 			if (event.isCanceled() || event.getAmount() <= 0.0F) {
 				return;
-			} else if (skill instanceof SkillActive && ((SkillActive) skill).isActive()) {
-				float amount = ((SkillActive) skill).onImpact(player, event.getEntityLiving(), event.getAmount());
-				event.setAmount(amount);
+			} else if (handlers[i].isActive()) {
+				applyImpact(handlers[i], event);
 			}
 		}
-		if (!event.isCanceled() && event.getAmount() > 0.0F && itemSkill instanceof SkillActive && ((SkillActive) itemSkill).isActive()) {
-			event.setAmount(((SkillActive) itemSkill).onImpact(player, event.getEntityLiving(), event.getAmount()));
-		}
-		if (!event.isCanceled() && event.getAmount() > 0.0F && dummySwordSkill instanceof SkillActive && ((SkillActive) dummySwordSkill).isActive()) {
-			event.setAmount(((SkillActive) dummySwordSkill).onImpact(player, event.getEntityLiving(), event.getAmount()));
-		}
+	}
+
+	/** Sets the event amount to the result of the skill's {@link SkillActive#onImpact}, recording the change in the {@link CombatLog} */
+	private void applyImpact(SkillActive skill, LivingHurtEvent event) {
+		float amount = event.getAmount();
+		float modified = skill.onImpact(player, event.getEntityLiving(), amount);
+		event.setAmount(modified);
+		CombatLog.record(CombatLog.Event.IMPACT, player, skill.getId(), event.getEntityLiving(), amount, modified, 0);
 	}
 
 	/**
@@ -444,17 +499,12 @@ public class DSSPlayerInfo
 	 * as well as calling {@link IComboSkill#onHurtTarget} for the current ICombo.
 	 */
 	public void onPostImpact(LivingHurtEvent event) {
-		for (SkillBase skill : skills.values()) {
-			if (skill instanceof SkillActive && ((SkillActive) skill).isActive()) {
-				((SkillActive) skill).postImpact(player, event.getEntityLiving(), event.getAmount());
+		SkillActive[] handlers = getHurtHandlers();
+		for (int i = 0; i < handlers.length; ++i) {
+			if (handlers[i].isActive()) {
+				handlers[i].postImpact(player, event.getEntityLiving(), event.getAmount());
 			}
 		}
-		if (itemSkill instanceof SkillActive && ((SkillActive) itemSkill).isActive()) {
-			((SkillActive) itemSkill).postImpact(player, event.getEntityLiving(), event.getAmount());
-		}
-		if (dummySwordSkill instanceof SkillActive && ((SkillActive) dummySwordSkill).isActive()) {
-			((SkillActive) dummySwordSkill).postImpact(player, event.getEntityLiving(), event.getAmount());
-		}
 		// combo gets updated last, after all damage modifications are completed
 		if (!event.isCanceled() && event.getAmount() > 0.0F && getComboSkill() != null && ((SkillActive) getComboSkill()).isActive()) {
 			if (!(event.getSource() instanceof IComboDamage) || ((IComboDamage) event.getSource()).isComboDamage(player)) {
@@ -788,28 +838,208 @@ public class DSSPlayerInfo
 	}
 
 	/**
-	 * This method should be called every update tick; currently called from LivingUpdateEvent
+	 * Returns true if any player on the world's side may have an active skill or combo in progress;
+	 * when false, combat event handlers may skip all skill processing without looking up any player's information
 	 */
-	public void onUpdate() {
-		updateISkillProvider();
-		if (attackTime > 0) {
-			--attackTime;
+	public static boolean isAnyHookStateSet(World world) {
+		return HOOK_STATE_COUNT[getSideIndex(world)].get() > 0;
+	}
+
+	private static int getSideIndex(World world) {
+		return (world.isRemote ? 1 : 0);
+	}
+
+	/**
+	 * Returns true if the player may have an active skill or a combo in progress
+	 */
+	public boolean hasHookState() {
+		return hasHookState;
+	}
+
+	/**
+	 * Flags the player as possibly having an active skill or combo, e.g. when a skill is activated or a combo starts
+	 */
+	public void markHookState() {
+		setHookState(true);
+		hurtHandlersDirty = true;
+	}
+
+	/**
+	 * Clears the hook state flag if the player no longer has any active skill or combo in progress;
+	 * called when a skill is deactivated and every tick after all skills have been updated
+	 */
+	public void updateHookState() {
+		setHookState(computeHookState());
+	}
+
+	/**
+	 * Clears the hook state flag regardless of the player's skills, e.g. when the player is removed from the world
+	 */
+	public void clearHookState() {
+		setHookState(false);
+	}
+
+	private void setHookState(boolean flag) {
+		if (flag != hasHookState) {
+			hasHookState = flag;
+			HOOK_STATE_COUNT[getSideIndex(player.getEntityWorld())].addAndGet(flag ? 1 : -1);
+		}
+	}
+
+	/**
+	 * Returns the compiled {@link #hurtHandlers}, compiling them first if they are out of date
+	 */
+	private SkillActive[] getHurtHandlers() {
+		if (hurtHandlersDirty) {
+			compileHurtHandlers();
+		}
+		return hurtHandlers;
+	}
+
+	/**
+	 * Compiles the {@link #hurtHandlers} from the currently active skills
+	 */
+	private void compileHurtHandlers() {
+		hurtHandlersDirty = false;
+		int n = countHurtHandlers(null);
+		if (n == 0) {
+			hurtHandlers = NO_HURT_HANDLERS;
+		} else {
+			SkillActive[] handlers = new SkillActive[n];
+			countHurtHandlers(handlers);
+			hurtHandlers = handlers;
+		}
+	}
+
+	/**
+	 * Counts the currently active skills in dispatch order, storing each in the array if it is not null
+	 */
+	private int countHurtHandlers(@Nullable SkillActive[] handlers) {
+		int n = 0;
+		for (SkillBase skill : skills.values()) {
+			if (skill instanceof SkillActive && ((SkillActive) skill).isActive()) {
+				if (handlers != null) { handlers[n] = (SkillActive) skill; }
+				++n;
+			}
+		}
+		if (itemSkill instanceof SkillActive && ((SkillActive) itemSkill).isActive()) {
+			if (handlers != null) { handlers[n] = (SkillActive) itemSkill; }
+			++n;
+		}
+		if (dummySwordSkill instanceof SkillActive && ((SkillActive) dummySwordSkill).isActive()) {
+			if (handlers != null) { handlers[n] = (SkillActive) dummySwordSkill; }
+			++n;
+		}
+		return n;
+	}
+
+	/**
+	 * Returns true if the compiled {@link #hurtHandlers} are exactly the currently active skills, in order
+	 */
+	private boolean areHurtHandlersCurrent() {
+		int n = 0;
+		for (SkillBase skill : skills.values()) {
+			if (skill instanceof SkillActive && ((SkillActive) skill).isActive()) {
+				if (n >= hurtHandlers.length || hurtHandlers[n++] != skill) { return false; }
+			}
 		}
-		if (useItemCooldown > 0) {
-			--useItemCooldown;
+		if (itemSkill instanceof SkillActive && ((SkillActive) itemSkill).isActive()) {
+			if (n >= hurtHandlers.length || hurtHandlers[n++] != itemSkill) { return false; }
 		}
-		if (itemSkill != null) {
-			itemSkill.onUpdate(player);
+		if (dummySwordSkill instanceof SkillActive && ((SkillActive) dummySwordSkill).isActive()) {
+			if (n >= hurtHandlers.length || hurtHandlers[n++] != dummySwordSkill) { return false; }
 		}
-		if (dummySwordSkill != null) {
-			dummySwordSkill.onUpdate(player);
+		return n == hurtHandlers.length;
+	}
+
+	private boolean computeHookState() {
+		if (comboSkill != null && comboSkill.isComboInProgress()) {
+			return true;
+		} else if (itemSkill instanceof SkillActive && ((SkillActive) itemSkill).isActive()) {
+			return true;
+		} else if (dummySwordSkill instanceof SkillActive && ((SkillActive) dummySwordSkill).isActive()) {
+			return true;
 		}
 		for (SkillBase skill : skills.values()) {
-			skill.onUpdate(player);
+			if (skill instanceof SkillActive && ((SkillActive) skill).isActive()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if the player may soon make {@link IReachAttackSkill reach attacks}, i.e. has such a skill
+	 * and either has an active skill or is holding a weapon; used to limit which entities need a {@link PositionHistory}
+	 */
+	public boolean mayReachAttack() {
+		if (!hasHookState && !PlayerUtils.isWeapon(player.getHeldItemMainhand())) {
+			return false;
+		} else if (itemSkill instanceof IReachAttackSkill) {
+			return true;
+		}
+		for (SkillBase skill : skills.values()) {
+			if (skill instanceof IReachAttackSkill) {
+				return true;
+			}
 		}
-		if (invalidateCombo) {
-			comboSkill = null;
-			invalidateCombo = false;
+		return false;
+	}
+
+	/** Returns the player to whom this information belongs */
+	public EntityPlayer getPlayer() {
+		return player;
+	}
+
+	/**
+	 * Runs every update phase in order, as the server's {@link SkillTickManager} does for each player; the client's manager
+	 * calls {@link #onUpdate(SkillTickManager.Phase)} across all holders instead
+	 */
+	public void onUpdate() {
+		for (SkillTickManager.Phase phase : SkillTickManager.Phase.values()) {
+			onUpdate(phase);
+		}
+	}
+
+	/**
+	 * Called each update tick for each phase, in order, by the {@link SkillTickManager} for the player's world
+	 */
+	public void onUpdate(SkillTickManager.Phase phase) {
+		switch (phase) {
+		case PRE:
+			updateISkillProvider();
+			if (attackTime > 0) {
+				--attackTime;
+			}
+			if (useItemCooldown > 0) {
+				--useItemCooldown;
+			}
+			break;
+		case SKILLS:
+			if (itemSkill != null) {
+				itemSkill.onUpdate(player);
+			}
+			if (dummySwordSkill != null) {
+				dummySwordSkill.onUpdate(player);
+			}
+			for (SkillBase skill : skills.values()) {
+				skill.onUpdate(player);
+			}
+			break;
+		case POST:
+			if (invalidateCombo) {
+				comboSkill = null;
+				invalidateCombo = false;
+			}
+			updateHookState();
+			// Skills may also stop being active on their own, e.g. when a timer runs out
+			if (!hasHookState) {
+				hurtHandlers = NO_HURT_HANDLERS;
+				hurtHandlersDirty = false;
+			} else if (!hurtHandlersDirty && !areHurtHandlersCurrent()) {
+				hurtHandlersDirty = true;
+			}
+			break;
 		}
 	}
 
@@ -866,12 +1096,51 @@ public class DSSPlayerInfo
 		}
 	}
 
-	/** Returns ExtendedPlayer properties for player */
+	/**
+	 * Returns ExtendedPlayer properties for player, resolving the capability only on the first call for each player entity
+	 */
 	public static final DSSPlayerInfo get(EntityPlayer player) {
+		Map<EntityPlayer, DSSPlayerInfo> cache = CACHE[getSideIndex(player.getEntityWorld())];
+		DSSPlayerInfo info = cache.get(player);
+		if (info == null) {
+			info = getUncached(player);
+			if (info != null) {
+				cache.put(player, info);
+			}
+		}
+		return info;
+	}
+
+	/** Returns ExtendedPlayer properties for player directly from the capability */
+	@Nullable
+	private static DSSPlayerInfo getUncached(EntityPlayer player) {
 		IPlayerInfo info = player.getCapability(IPlayerInfo.CapabilityPlayerInfo.PLAYER_INFO, null);
 		return info == null ? null : info.get();
 	}
 
+	/**
+	 * Removes the player entity from the {@link #get} cache, e.g. when the player logs out or is replaced by a clone
+	 */
+	public static void invalidate(EntityPlayer player) {
+		CACHE[getSideIndex(player.getEntityWorld())].remove(player);
+	}
+
+	/**
+	 * Removes every client player from the {@link #get} cache, e.g. when disconnecting from a server; safe to call from any thread
+	 */
+	public static void invalidateClient() {
+		CACHE[1].clear();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<EntityPlayer, DSSPlayerInfo>[] newCaches() {
+		Map<EntityPlayer, DSSPlayerInfo>[] caches = new Map[2];
+		for (int i = 0; i < caches.length; ++i) {
+			caches[i] = new MapMaker().weakKeys().weakValues().makeMap();
+		}
+		return caches;
+	}
+
 	/**
 	 * Call when the player logs in for the first time
 	 */
@@ -928,11 +1197,50 @@ public class DSSPlayerInfo
 		return compound;
 	}
 
+	/**
+	 * Writes the same data as {@link #writeNBT} for network synchronization, using skill ids instead of
+	 * registry names; see {@link SkillBase#writeToBuffer(PacketBuffer)}
+	 */
+	public void writeToBuffer(PacketBuffer buffer) {
+		buffer.writeBoolean(receivedGear);
+		buffer.writeVarInt(skills.size());
+		for (SkillBase skill : skills.values()) {
+			skill.writeToBuffer(buffer);
+		}
+		buffer.writeVarInt(disabledSkillIds.size());
+		for (Byte id : disabledSkillIds) {
+			buffer.writeVarInt(id & 0xFF);
+		}
+	}
+
+	/**
+	 * Reads data written by {@link #writeToBuffer(PacketBuffer)}, replacing all current skills as {@link #readNBT} does
+	 */
+	public void readFromBuffer(PacketBuffer buffer) {
+		skills.clear();
+		hurtHandlersDirty = true;
+		receivedGear = buffer.readBoolean();
+		for (int i = buffer.readVarInt(); i > 0; --i) {
+			SkillBase skill = SkillBase.loadFromBuffer(buffer);
+			if (skill != null) {
+				skills.put(skill.getId(), skill);
+			}
+		}
+		disabledSkillIds.clear();
+		for (int i = buffer.readVarInt(); i > 0; --i) {
+			SkillBase skill = SkillRegistry.getSkillById((byte) buffer.readVarInt());
+			if (skill != null) {
+				disabledSkillIds.add(skill.getId());
+			}
+		}
+	}
+
 	/**
 	 * Call from {@link IStorage#readNBT} 
 	 */
 	public void readNBT(NBTTagCompound compound) {
 		skills.clear(); // allows skills to reset on client without re-adding all the skills
+		hurtHandlersDirty = true;
 		NBTTagList taglist = compound.getTagList("DynamicSwordSkills", Constants.NBT.TAG_COMPOUND);
 		for (int i = 0; i < taglist.tagCount(); ++i) {
 			NBTTagCompound tag = taglist.getCompoundTagAt(i);
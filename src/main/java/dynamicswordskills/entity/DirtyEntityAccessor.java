@@ -17,9 +17,10 @@
 
 package dynamicswordskills.entity;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 
+import dynamicswordskills.util.DamagePreview;
 import net.minecraft.client.multiplayer.PlayerControllerMP;
 import net.minecraft.entity.EntityLiving;
 import net.minecraft.entity.EntityLivingBase;
@@ -30,49 +31,68 @@ import net.minecraftforge.fml.relauncher.ReflectionHelper;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 
+/**
+ * 
+ * Access to private vanilla members via method handles, all of which are resolved when this class is
+ * initialized (see {@link #initialize()}) so that each call is a plain, JIT-friendly handle invocation.
+ * Client-only members are resolved separately in {@link ClientHandles}.
+ *
+ */
 public class DirtyEntityAccessor {
 
-	/** Accessible reference to {@code EntityLivingBase#applyPotionDamageCalculations */
-	private static Method applyPotionDamageCalculations;
-	/** Accessible reference to {@code EntityLiving#experienceValue */
-	private static Field experienceValue;
-	/** Accessible reference to {@code EntityPlayer#itemStackMainHand} */
-	private static Field itemStackMainHand;
-	/** Accessible reference to {@code PlayerControllerMP#syncCurrentPlayItem} */
-	private static Method syncCurrentPlayItem;
-	/** Accessible reference to {@code EntityLivingBase#ticksSinceLastSwing */
-	private static Field ticksSinceLastSwing;
+	/** Handle for {@code EntityLivingBase#applyPotionDamageCalculations}: (EntityLivingBase, DamageSource, float) float */
+	private static final MethodHandle applyPotionDamageCalculations;
+	/** Getter and setter for {@code EntityLiving#experienceValue} */
+	private static final MethodHandle getExperienceValue, setExperienceValue;
+	/** Setter for {@code EntityPlayer#itemStackMainHand} */
+	private static final MethodHandle setItemStackMainHand;
+	/** Setter for {@code EntityLivingBase#ticksSinceLastSwing} */
+	private static final MethodHandle setTicksSinceLastSwing;
+
+	static {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		try {
+			applyPotionDamageCalculations = lookup.unreflect(ReflectionHelper.findMethod(EntityLivingBase.class, "applyPotionDamageCalculations", "func_70672_c", DamageSource.class, float.class));
+			getExperienceValue = lookup.unreflectGetter(ReflectionHelper.findField(EntityLiving.class, "field_70728_aV", "experienceValue"));
+			setExperienceValue = lookup.unreflectSetter(ReflectionHelper.findField(EntityLiving.class, "field_70728_aV", "experienceValue"));
+			setItemStackMainHand = lookup.unreflectSetter(ReflectionHelper.findField(EntityPlayer.class, "field_184831_bT", "itemStackMainHand"));
+			setTicksSinceLastSwing = lookup.unreflectSetter(ReflectionHelper.findField(EntityLivingBase.class, "field_184617_aD", "ticksSinceLastSwing"));
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("Failed to resolve private entity members", e);
+		}
+	}
+
+	/**
+	 * Resolves all common handles; call during mod initialization so that any failure surfaces at startup
+	 */
+	public static void initialize() {}
 
 	/**
-	 * Returns the amount of damage the entity will receive after armor and potions are taken into account
+	 * Returns the amount of damage the entity will receive after armor, potions, enchantments and absorption are taken into account
+	 * @see DamagePreview#getModifiedDamage(EntityLivingBase, DamageSource, float)
 	 */
 	public static float getModifiedDamage(EntityLivingBase entity, DamageSource source, float amount) {
-		if (applyPotionDamageCalculations == null) {
-			applyPotionDamageCalculations = ReflectionHelper.findMethod(EntityLivingBase.class, "applyPotionDamageCalculations", "func_70672_c", DamageSource.class, float.class);
-		}
-		// Don't want to actually damage the entity's armor at this point, so
-		// reproduce parts of EntityLivingBase#applyArmorCalculations here:
-		if (!source.isUnblockable()) {
-			int armor = 25 - entity.getTotalArmorValue();
-			amount = (amount * (float) armor) / 25.0F;
-		}
+		return DamagePreview.getModifiedDamage(entity, source, amount);
+	}
+
+	/**
+	 * Calls {@code EntityLivingBase#applyPotionDamageCalculations}, which has no side effects, and returns the result
+	 */
+	public static float applyPotionDamageCalculations(EntityLivingBase entity, DamageSource source, float amount) {
 		try {
-			applyPotionDamageCalculations.invoke(entity, source, amount);
-		} catch (Exception e) {
+			return (float) applyPotionDamageCalculations.invokeExact(entity, source, amount);
+		} catch (Throwable e) {
 			e.printStackTrace();
+			return amount;
 		}
-		return Math.max(amount - entity.getAbsorptionAmount(), 0.0F);
 	}
 
 	/** Sets or adds to the amount of xp the entity will drop when killed */
 	public static void setLivingXp(EntityLiving entity, int xp, boolean add) {
-		if (experienceValue == null) {
-			experienceValue = ReflectionHelper.findField(EntityLiving.class, "field_70728_aV", "experienceValue");
-		}
 		try {
-			int value = experienceValue.getInt(entity);
-			experienceValue.set(entity, (add ? value + xp : xp));
-		} catch (Exception e) {
+			int value = (int) getExperienceValue.invokeExact(entity);
+			setExperienceValue.invokeExact(entity, (add ? value + xp : xp));
+		} catch (Throwable e) {
 			e.printStackTrace();
 		}
 	}
@@ -81,24 +101,18 @@ public class DirtyEntityAccessor {
 	 * Use to e.g. prevent setting the main hand stack from resetting the cooldown timer
 	 */
 	public static void setItemStackMainHand(EntityPlayer player, ItemStack stack) {
-		if (itemStackMainHand == null) {
-			itemStackMainHand = ReflectionHelper.findField(EntityPlayer.class, "field_184831_bT", "itemStackMainHand");
-		}
 		try {
-			itemStackMainHand.set(player, stack.copy());
-		} catch (Exception e) {
+			setItemStackMainHand.invokeExact(player, stack.copy());
+		} catch (Throwable e) {
 			e.printStackTrace();
 		}
 	}
 
-	/** Sets or adds to the amount of xp the entity will drop when killed */
+	/** Sets the number of ticks since the entity last swung its arm, which determines the attack cooldown */
 	public static void setTicksSinceLastSwing(EntityLivingBase entity, int ticks) {
-		if (ticksSinceLastSwing == null) {
-			ticksSinceLastSwing = ReflectionHelper.findField(EntityLivingBase.class, "field_184617_aD", "ticksSinceLastSwing");
-		}
 		try {
-			ticksSinceLastSwing.set(entity, ticks);
-		} catch (Exception e) {
+			setTicksSinceLastSwing.invokeExact(entity, ticks);
+		} catch (Throwable e) {
 			e.printStackTrace();
 		}
 	}
@@ -106,13 +120,30 @@ public class DirtyEntityAccessor {
 	/** Calls {@link PlayerControllerMP#syncCurrentPlayItem()} */
 	@SideOnly(Side.CLIENT)
 	public static void syncCurrentPlayItem(PlayerControllerMP player) {
-		if (syncCurrentPlayItem == null) {
-			syncCurrentPlayItem = ReflectionHelper.findMethod(PlayerControllerMP.class, "syncCurrentPlayItem", "func_78750_j");
-		}
 		try {
-			syncCurrentPlayItem.invoke(player);
-		} catch (Exception e) {
+			ClientHandles.syncCurrentPlayItem.invokeExact(player);
+		} catch (Throwable e) {
 			e.printStackTrace();
 		}
 	}
+
+	/**
+	 * Handles for client-only members, resolved when first used or from {@link ClientHandles#initialize()}
+	 */
+	@SideOnly(Side.CLIENT)
+	public static class ClientHandles {
+		/** Handle for {@code PlayerControllerMP#syncCurrentPlayItem}: (PlayerControllerMP) void */
+		private static final MethodHandle syncCurrentPlayItem;
+
+		static {
+			try {
+				syncCurrentPlayItem = MethodHandles.lookup().unreflect(ReflectionHelper.findMethod(PlayerControllerMP.class, "syncCurrentPlayItem", "func_78750_j"));
+			} catch (IllegalAccessException e) {
+				throw new IllegalStateException("Failed to resolve private client members", e);
+			}
+		}
+
+		/** Resolves all client-only handles; call during client initialization */
+		public static void initialize() {}
+	}
 }
@@ -18,14 +18,19 @@
 package dynamicswordskills.entity;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.commons.lang3.ArrayUtils;
 
+import com.google.common.base.Predicate;
+
 import dynamicswordskills.ref.ModSounds;
 import dynamicswordskills.util.DamageUtils;
 import dynamicswordskills.util.PlayerUtils;
 import dynamicswordskills.util.TargetUtils;
+import dynamicswordskills.util.TargetUtils.TargetQuery;
+import dynamicswordskills.util.TickWatchdog;
 import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.entity.Entity;
@@ -34,6 +39,7 @@ import net.minecraft.entity.projectile.EntityThrowable;
 import net.minecraft.init.MobEffects;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.potion.PotionEffect;
+import net.minecraft.util.DamageSource;
 import net.minecraft.util.EnumBlockRenderType;
 import net.minecraft.util.EnumParticleTypes;
 import net.minecraft.util.SoundCategory;
@@ -48,6 +54,18 @@ public class EntityLeapingBlow extends EntityThrowable
 	/** Keeps track of entities already affected so they don't get attacked twice */
 	private List<Integer> affectedEntities = new ArrayList<Integer>(); 
 
+	/** The area of effect strikes every living entity other than the thrower */
+	private static final List<Predicate<Entity>> NO_FILTERS = Collections.emptyList();
+
+	/** Targets found by the area sweep but not yet struck, e.g. because the {@link TickWatchdog} is spreading hits over several ticks */
+	private final List<EntityLivingBase> pendingTargets = new ArrayList<EntityLivingBase>();
+
+	/** Damage for each of the {@link #pendingTargets}, fixed when the target was found */
+	private final List<Float> pendingDamage = new ArrayList<Float>();
+
+	/** Damage source for this entity and its thrower, reused for every target struck; see {@link #getDamageSource()} */
+	private DamageSource damageSource;
+
 	/** Base damage should be set from player's Leaping Blow skill */
 	private float damage = 2.0F;
 
@@ -115,6 +133,14 @@ public class EntityLeapingBlow extends EntityThrowable
 		return (50 + (level * 10));
 	}
 
+	/** Returns the indirect sword damage source for this entity and its current thrower */
+	private DamageSource getDamageSource() {
+		if (!DamageUtils.isSourceFor(damageSource, this, getThrower())) {
+			damageSource = DamageUtils.causeIndirectSwordDamage(this, getThrower());
+		}
+		return damageSource;
+	}
+
 	/** Returns area within which to search for targets each tick */
 	private AxisAlignedBB getAoE() {
 		return getEntityBoundingBox().expand((0.25F * level), 0.0F, (0.25F * level));
@@ -127,21 +153,9 @@ public class EntityLeapingBlow extends EntityThrowable
 			setDead();
 		}
 		if (!getEntityWorld().isRemote) {
-			List<EntityLivingBase> targets = getEntityWorld().getEntitiesWithinAABB(EntityLivingBase.class, getAoE());
-			for (EntityLivingBase target : targets) {
-				if (!affectedEntities.contains(target.getEntityId()) && target != getThrower() && !TargetUtils.isTargetInFrontOf(this, target, 30F)) {
-					affectedEntities.add(target.getEntityId());
-					float d = damage;
-					if (getThrower() != null) {
-						double d0 = (1.0D - getThrower().getDistanceSq(target) / getRangeSquared());
-						d *= (d0 > 1.0D ? 1.0D : d0);
-						if (d < 0.5D) { return; }
-					}
-					if (target.attackEntityFrom(DamageUtils.causeIndirectSwordDamage(this, getThrower()), d)) {
-						target.addPotionEffect(new PotionEffect(MobEffects.POISON, getPotionDuration()));
-					}
-				}
-			}
+			// Evaluated at the end of the world tick together with every other area query; see onAoeTargetsFound
+			TargetQuery query = TargetQuery.box(getThrower(), getAoE(), NO_FILTERS).setCone(posX, posZ, rotationYaw, 30F, false);
+			SkillTickManager.get(getEntityWorld()).submit(query, this::onAoeTargetsFound);
 		} else {
 			/** Velocity x and z for spawning particles to left and right of entity */
 			double vX = motionZ;
@@ -160,6 +174,63 @@ public class EntityLeapingBlow extends EntityThrowable
 		}
 	}
 
+	/**
+	 * Called at the end of the world tick with every entity in this tick's area of effect outside the 30 degree
+	 * cone ahead, in the order in which the world lists them; strikes those not yet affected
+	 */
+	private void onAoeTargetsFound(List<EntityLivingBase> targets) {
+		long start = TickWatchdog.start();
+		int queued = pendingTargets.size();
+		for (EntityLivingBase target : targets) {
+			if (!affectedEntities.contains(target.getEntityId()) && target != getThrower()) {
+				affectedEntities.add(target.getEntityId());
+				float d = damage;
+				if (getThrower() != null) {
+					double d0 = (1.0D - getThrower().getDistanceSq(target) / getRangeSquared());
+					d *= (d0 > 1.0D ? 1.0D : d0);
+					if (d < 0.5D) { break; }
+				}
+				pendingTargets.add(target);
+				pendingDamage.add(d);
+			}
+		}
+		TickWatchdog.stop(start);
+		// Strike outside of the timed section, as the damage and death handling are vanilla's rather than DSS time
+		int added = pendingTargets.size() - queued;
+		// Once dead, this entity will not update again, so strike everything that remains
+		strikePendingTargets(isDead ? Integer.MAX_VALUE : TickWatchdog.getAoeHitsPerTick());
+		TickWatchdog.onAoeHitsDeferred(Math.min(added, pendingTargets.size()));
+	}
+
+	/**
+	 * Strikes up to the given number of pending targets in the order found. Targets that have since died, left the
+	 * area of effect or moved into the cone ahead are skipped, and may be found again by a later sweep.
+	 */
+	private void strikePendingTargets(int hits) {
+		AxisAlignedBB aoe = getAoE();
+		int i = 0;
+		for (; i < pendingTargets.size() && hits > 0; ++i) {
+			EntityLivingBase target = pendingTargets.get(i);
+			if (target.isDead) {
+				continue;
+			} else if (!target.getEntityBoundingBox().intersects(aoe) || TargetUtils.isTargetInFrontOf(this, target, 30F)) {
+				affectedEntities.remove(Integer.valueOf(target.getEntityId()));
+				continue;
+			}
+			--hits;
+			strike(target, pendingDamage.get(i));
+		}
+		pendingTargets.subList(0, i).clear();
+		pendingDamage.subList(0, i).clear();
+	}
+
+	/** Attacks the target with the area of effect damage, poisoning it if the attack succeeded */
+	private void strike(EntityLivingBase target, float amount) {
+		if (target.attackEntityFrom(getDamageSource(), amount)) {
+			target.addPotionEffect(new PotionEffect(MobEffects.POISON, getPotionDuration()));
+		}
+	}
+
 	@Override
 	protected void onImpact(RayTraceResult result) {
 		if (!getEntityWorld().isRemote) {
@@ -167,7 +238,7 @@ public class EntityLeapingBlow extends EntityThrowable
 				Entity entity = result.entityHit;
 				if (entity instanceof EntityLivingBase && !affectedEntities.contains(entity.getEntityId()) && entity != getThrower()) {
 					affectedEntities.add(entity.getEntityId());
-					if (entity.attackEntityFrom(DamageUtils.causeIndirectSwordDamage(this, getThrower()), damage)) {
+					if (entity.attackEntityFrom(getDamageSource(), damage)) {
 						PlayerUtils.playSoundAtEntity(getEntityWorld(), entity, ModSounds.HURT_FLESH, SoundCategory.PLAYERS, 0.4F, 0.5F);
 						((EntityLivingBase) entity).addPotionEffect(new PotionEffect(MobEffects.POISON, 60));
 					}
@@ -26,6 +26,7 @@ import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.projectile.EntityThrowable;
 import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.DamageSource;
 import net.minecraft.util.EnumParticleTypes;
 import net.minecraft.util.SoundCategory;
 import net.minecraft.util.math.RayTraceResult;
@@ -48,6 +49,9 @@ public class EntitySwordBeam extends EntityThrowable
 	/** Damage that will be inflicted on impact */
 	private float damage = 4.0F;
 
+	/** Projectile combo damage source for this beam and its player, reused for every entity struck */
+	private DamageSource damageSource;
+
 	/** Skill level of user; affects range */
 	private int level = 1;
 
@@ -135,7 +139,10 @@ public class EntitySwordBeam extends EntityThrowable
 					if (skill != null) {
 						skill.onImpact(player, false);
 					}
-					if (result.entityHit.attackEntityFrom(DamageUtils.causeIndirectComboDamage(this, player).setProjectile(), damage)) {
+					if (!DamageUtils.isSourceFor(damageSource, this, player)) {
+						damageSource = DamageUtils.causeIndirectComboDamage(this, player).setProjectile();
+					}
+					if (result.entityHit.attackEntityFrom(damageSource, damage)) {
 						PlayerUtils.playSoundAtEntity(getEntityWorld(), result.entityHit, ModSounds.HURT_FLESH, SoundCategory.PLAYERS, 0.4F, 0.5F);
 					}
 					damage *= 0.8F;
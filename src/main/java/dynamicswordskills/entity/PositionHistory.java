@@ -0,0 +1,88 @@
+/**
+    Copyright (C) <2017> <coolAlias>
+
+    This file is part of coolAlias' Dynamic Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package dynamicswordskills.entity;
+
+import net.minecraft.entity.Entity;
+
+/**
+ *
+ * Fixed-size ring buffer of an entity's recent server positions, one sample per world tick, used to
+ * validate attacks that were aimed at where a high-latency client saw the entity.
+ *
+ * Histories are kept by the {@link SkillTickManager} only for entities near players who may make reach
+ * attacks, and are dropped once the entity has gone {@link #LENGTH} ticks without a sample.
+ *
+ */
+public class PositionHistory
+{
+	/** Number of samples kept, i.e. the maximum number of ticks that can be rewound; must be a power of two */
+	public static final int LENGTH = 16;
+
+	private final long[] ticks = new long[LENGTH];
+	private final double[] xs = new double[LENGTH];
+	private final double[] ys = new double[LENGTH];
+	private final double[] zs = new double[LENGTH];
+
+	/** Index at which the next sample will be stored */
+	private int next;
+
+	/** Number of samples stored, up to {@link #LENGTH} */
+	private int size;
+
+	/**
+	 * Stores the entity's current position for the tick, replacing any sample already stored for that tick
+	 */
+	public void record(Entity entity, long tick) {
+		if (size > 0 && ticks[(next - 1) & (LENGTH - 1)] == tick) {
+			next = (next - 1) & (LENGTH - 1);
+			--size;
+		}
+		ticks[next] = tick;
+		xs[next] = entity.posX;
+		ys[next] = entity.posY;
+		zs[next] = entity.posZ;
+		next = (next + 1) & (LENGTH - 1);
+		size = Math.min(size + 1, LENGTH);
+	}
+
+	/** Returns the number of samples stored */
+	public int size() {
+		return size;
+	}
+
+	/** Returns the world tick of the most recent sample, or Long.MIN_VALUE if there is none */
+	public long getLastTick() {
+		return (size > 0 ? ticks[(next - 1) & (LENGTH - 1)] : Long.MIN_VALUE);
+	}
+
+	/**
+	 * Returns the index of the sample age samples before the most recent one, for use with the getters
+	 * @param age 0 for the most recent sample, up to {@link #size()} - 1
+	 */
+	public int getIndex(int age) {
+		if (age < 0 || age >= size) {
+			throw new IndexOutOfBoundsException("Sample age " + age + " out of range for size " + size);
+		}
+		return (next - 1 - age) & (LENGTH - 1);
+	}
+
+	public long getTick(int index) { return ticks[index]; }
+	public double getX(int index) { return xs[index]; }
+	public double getY(int index) { return ys[index]; }
+	public double getZ(int index) { return zs[index]; }
+}
@@ -0,0 +1,327 @@
+/**
+    Copyright (C) <2017> <coolAlias>
+
+    This file is part of coolAlias' Dynamic Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package dynamicswordskills.entity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Consumer;
+
+import javax.annotation.Nullable;
+
+import dynamicswordskills.util.TargetUtils;
+import dynamicswordskills.util.TargetUtils.TargetQuery;
+import dynamicswordskills.util.TickWatchdog;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityLivingBase;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.world.World;
+
+/**
+ *
+ * Per-world owner of every skill holder in that world, replacing the per-entity LivingUpdateEvent dispatch.
+ *
+ * Players are registered when they join a world and dropped once they are dead or have moved to a different
+ * world. Each tick the holders are updated in {@link Phase} order, with every holder completing a phase before
+ * any holder begins the next one.
+ *
+ * The client ticks the current client world's manager from ClientTickEvent while entities in that world are being updated.
+ * The server instead ticks each holder from its own PlayerTickEvent, so that skills still update at the start of
+ * the player's update in the network tick, as they did from LivingUpdateEvent, rather than before the world's
+ * entities have moved; each server holder therefore runs every phase in turn, and departed holders are dropped
+ * at the start of each world tick.
+ *
+ * On the server, the manager also keeps a {@link PositionHistory} for each living entity near a player who
+ * {@link DSSPlayerInfo#mayReachAttack() may make reach attacks}; other entities are not tracked at all.
+ *
+ * Server-side area queries, e.g. from every Leaping Blow in the world, are {@link #submit submitted} during the
+ * tick and evaluated together with {@link TargetUtils#evaluateQueries} once all entities have moved.
+ *
+ */
+public class SkillTickManager
+{
+	/** Update phases, run in declaration order */
+	public static enum Phase {
+		/** Held skill providers and click cooldowns */
+		PRE,
+		/** Skill updates */
+		SKILLS,
+		/** Clean up after all skills have been updated, e.g. invalidating a finished combo */
+		POST;
+	}
+
+	private static final Phase[] PHASES = Phase.values();
+
+	private static final Map<World, SkillTickManager> MANAGERS = Collections.synchronizedMap(new WeakHashMap<World, SkillTickManager>());
+
+	/** Maximum number of entities per world with a position history */
+	private static final int MAX_HISTORIES = 512;
+
+	/** Distance around each reach attacker within which entity positions are recorded */
+	private static final double HISTORY_RANGE = 16.0D;
+
+	private final World world;
+
+	/** Skill holders in this world, in the order in which they joined */
+	private final List<DSSPlayerInfo> holders = new ArrayList<DSSPlayerInfo>();
+
+	/** Recent positions of entities near players who may make reach attacks */
+	private final Map<Entity, PositionHistory> histories = new HashMap<Entity, PositionHistory>();
+
+	/** Target queries submitted during the current tick, each with the callback receiving its targets */
+	private final List<TargetQuery> queries = new ArrayList<TargetQuery>();
+	private final List<Consumer<List<EntityLivingBase>>> callbacks = new ArrayList<Consumer<List<EntityLivingBase>>>();
+
+	private SkillTickManager(World world) {
+		this.world = world;
+	}
+
+	/**
+	 * Returns the manager for the world, creating it if necessary
+	 */
+	public static SkillTickManager get(World world) {
+		synchronized (MANAGERS) {
+			SkillTickManager manager = MANAGERS.get(world);
+			if (manager == null) {
+				manager = new SkillTickManager(world);
+				MANAGERS.put(world, manager);
+			}
+			return manager;
+		}
+	}
+
+	/**
+	 * Returns the world's manager if it has one, without creating it
+	 */
+	@Nullable
+	public static SkillTickManager getIfPresent(World world) {
+		return MANAGERS.get(world);
+	}
+
+	/**
+	 * Discards the world's manager; call when the world is unloaded
+	 */
+	public static void remove(World world) {
+		SkillTickManager manager = MANAGERS.remove(world);
+		if (manager != null) {
+			for (DSSPlayerInfo info : manager.holders) {
+				info.clearHookState();
+			}
+			manager.holders.clear();
+			manager.histories.clear();
+			manager.queries.clear();
+			manager.callbacks.clear();
+		}
+	}
+
+	/**
+	 * Registers the player with the manager for the world the player is joining
+	 */
+	public static void onPlayerJoinWorld(EntityPlayer player, World world) {
+		DSSPlayerInfo info = DSSPlayerInfo.get(player);
+		if (info != null) {
+			SkillTickManager.get(world).add(info);
+		}
+	}
+
+	/**
+	 * Updates every skill holder in the world, if the world has a manager; client side only
+	 */
+	public static void tickWorld(World world) {
+		SkillTickManager manager = getIfPresent(world);
+		if (manager != null) {
+			manager.tick();
+		}
+	}
+
+	/**
+	 * Runs every phase for the player if the player is a skill holder in its current world's manager; server side only
+	 */
+	public static void tickPlayer(EntityPlayer player) {
+		SkillTickManager manager = getIfPresent(player.getEntityWorld());
+		if (manager != null) {
+			manager.tick(player);
+		}
+	}
+
+	/**
+	 * Drops holders that have left the world, if the world has a manager; server side only
+	 */
+	public static void pruneWorld(World world) {
+		SkillTickManager manager = getIfPresent(world);
+		if (manager != null) {
+			manager.prune();
+		}
+	}
+
+	/**
+	 * Records the positions of entities near reach attackers in the world, if the world has a manager;
+	 * call at the end of each server world tick, once all entities have moved
+	 */
+	public static void recordWorldPositions(World world) {
+		SkillTickManager manager = getIfPresent(world);
+		if (manager != null) {
+			manager.recordPositions();
+		}
+	}
+
+	/**
+	 * Evaluates every target query submitted in the world this tick, if the world has a manager;
+	 * call at the end of each server world tick, once all entities have moved
+	 */
+	public static void evaluateWorldQueries(World world) {
+		SkillTickManager manager = getIfPresent(world);
+		if (manager != null) {
+			manager.evaluateQueries();
+		}
+	}
+
+	private void add(DSSPlayerInfo info) {
+		if (!holders.contains(info)) {
+			holders.add(info);
+		}
+	}
+
+	/** Returns the number of skill holders currently in this world */
+	public int size() {
+		return holders.size();
+	}
+
+	/**
+	 * Drops holders that have left the world, then runs each {@link Phase} for all remaining holders
+	 */
+	public void tick() {
+		prune();
+		for (Phase phase : PHASES) {
+			for (int i = 0; i < holders.size(); ++i) {
+				holders.get(i).onUpdate(phase);
+			}
+		}
+	}
+
+	/**
+	 * Runs each {@link Phase} for the player alone, if still a living holder in this world
+	 */
+	public void tick(EntityPlayer player) {
+		if (player.isDead || player.getEntityWorld() != world) {
+			return;
+		}
+		for (int i = 0; i < holders.size(); ++i) {
+			DSSPlayerInfo info = holders.get(i);
+			if (info.getPlayer() == player) {
+				info.onUpdate();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Drops holders that are dead or have moved to a different world
+	 */
+	public void prune() {
+		for (int i = holders.size() - 1; i >= 0; --i) {
+			EntityPlayer player = holders.get(i).getPlayer();
+			if (player.isDead || player.getEntityWorld() != world) {
+				if (player.isDead) {
+					holders.get(i).clearHookState();
+				}
+				holders.remove(i);
+			}
+		}
+	}
+
+	/**
+	 * Queues the query to be evaluated with all others submitted this tick; server side only
+	 * @param callback Receives the query's targets at the end of the world tick, outside of any {@link TickWatchdog} section
+	 */
+	public void submit(TargetQuery query, Consumer<List<EntityLivingBase>> callback) {
+		queries.add(query);
+		callbacks.add(callback);
+	}
+
+	/**
+	 * Evaluates the queries submitted so far in one pass and hands each its targets
+	 */
+	public void evaluateQueries() {
+		int n = queries.size();
+		if (n == 0) {
+			return;
+		}
+		long start = TickWatchdog.start();
+		List<List<EntityLivingBase>> results = TargetUtils.evaluateQueries(world, queries);
+		TickWatchdog.stop(start);
+		for (int i = 0; i < n; ++i) {
+			callbacks.get(i).accept(results.get(i));
+		}
+		// Queries submitted by the callbacks themselves wait for the next evaluation
+		queries.subList(0, n).clear();
+		callbacks.subList(0, n).clear();
+	}
+
+	/**
+	 * Returns the entity's position history, or null if it has not recently been near a reach attacker
+	 */
+	@Nullable
+	public PositionHistory getHistory(Entity entity) {
+		return histories.get(entity);
+	}
+
+	/**
+	 * Samples the position of every living entity near each holder who may make reach attacks,
+	 * then drops the histories of entities that are dead or have not been sampled recently
+	 */
+	public void recordPositions() {
+		long tick = world.getTotalWorldTime();
+		for (int i = 0; i < holders.size(); ++i) {
+			DSSPlayerInfo info = holders.get(i);
+			if (!info.mayReachAttack()) {
+				continue;
+			}
+			EntityPlayer player = info.getPlayer();
+			List<EntityLivingBase> list = world.getEntitiesWithinAABB(EntityLivingBase.class, player.getEntityBoundingBox().grow(HISTORY_RANGE));
+			for (int j = 0; j < list.size(); ++j) {
+				EntityLivingBase entity = list.get(j);
+				if (entity == player) {
+					continue;
+				}
+				PositionHistory history = histories.get(entity);
+				if (history == null) {
+					if (histories.size() >= MAX_HISTORIES) {
+						continue;
+					}
+					history = new PositionHistory();
+					histories.put(entity, history);
+				}
+				history.record(entity, tick);
+			}
+		}
+		if (!histories.isEmpty()) {
+			Iterator<Map.Entry<Entity, PositionHistory>> iterator = histories.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<Entity, PositionHistory> entry = iterator.next();
+				if (entry.getKey().isDead || entry.getValue().getLastTick() < tick - PositionHistory.LENGTH) {
+					iterator.remove();
+				}
+			}
+		}
+	}
+}
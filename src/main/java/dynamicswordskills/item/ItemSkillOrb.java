@@ -28,6 +28,7 @@ import dynamicswordskills.api.IRandomSkill;
 import dynamicswordskills.api.ISkillInfusionFuelItem;
 import dynamicswordskills.api.ItemGrantSkill;
 import dynamicswordskills.api.SkillRegistry;
+import dynamicswordskills.loot.SkillSampler;
 import dynamicswordskills.skills.SkillBase;
 import net.minecraft.client.renderer.block.model.ModelResourceLocation;
 import net.minecraft.creativetab.CreativeTabs;
@@ -82,7 +83,7 @@ public class ItemSkillOrb extends ItemGrantSkill implements IModItem, ISkillInfu
 
 	@Override
 	public SkillBase getRandomSkill(Random rand) {
-		return getSkillFromDamage(rand.nextInt(skill_id_map.size()));
+		return SkillSampler.get().drawSkill(rand);
 	}
 
 	@Override
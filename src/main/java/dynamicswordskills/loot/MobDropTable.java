@@ -0,0 +1,210 @@
+/**
+    Copyright (C) <2017> <coolAlias>
+
+    This file is part of coolAlias' Dynamic Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package dynamicswordskills.loot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.annotation.Nullable;
+
+import dynamicswordskills.DynamicSwordSkills;
+import dynamicswordskills.api.IMetadataSkillItem;
+import dynamicswordskills.api.SkillRegistry;
+import dynamicswordskills.ref.Config;
+import dynamicswordskills.skills.SkillBase;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityList;
+import net.minecraft.entity.EntityLivingBase;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.ResourceLocation;
+
+/**
+ *
+ * Specific skill orb drops for mobs, built from the {@link Config#getMobOrbDrops() config} entries.
+ *
+ * Each entry names an entity, a skill, and optionally a weight and a drop chance. Entries apply to the named
+ * entity's class and to any subclass without entries of its own, so e.g. modded zombies inherit the zombie's drops.
+ * The class hierarchy is walked once per entity class and the result is memoized, so each lookup is constant time.
+ *
+ * The table is built lazily, after all entities have been registered, and rebuilt when the config changes.
+ *
+ */
+public class MobDropTable
+{
+	private static volatile MobDropTable instance;
+
+	/** Drops for each entity class with its own entries */
+	private final Map<Class<? extends Entity>, Drops> declared = new HashMap<Class<? extends Entity>, Drops>();
+
+	/** Memoized drops for each entity class, resolved from the nearest ancestor with entries; may be null */
+	private final ClassValue<Drops> resolved = new ClassValue<Drops>() {
+		@Override
+		protected Drops computeValue(Class<?> clazz) {
+			for (Class<?> c = clazz; c != null && Entity.class.isAssignableFrom(c); c = c.getSuperclass()) {
+				Drops drops = declared.get(c);
+				if (drops != null) {
+					return drops;
+				}
+			}
+			return null;
+		}
+	};
+
+	private MobDropTable(String[] entries) {
+		Map<Class<? extends Entity>, List<Entry>> lists = new HashMap<Class<? extends Entity>, List<Entry>>();
+		for (String line : entries) {
+			String[] parts = line.trim().split("=");
+			String[] values = (parts.length == 2 ? parts[1].split(",") : new String[0]);
+			Class<? extends Entity> clazz = (values.length > 0 ? EntityList.getClass(new ResourceLocation(parts[0].trim())) : null);
+			SkillBase skill = (values.length > 0 ? SkillRegistry.get(new ResourceLocation(values[0].trim())) : null);
+			if (clazz == null || skill == null || values.length > 3) {
+				DynamicSwordSkills.logger.warn("Invalid mob orb drop entry: " + line);
+				continue;
+			}
+			try {
+				int weight = (values.length > 1 ? Integer.parseInt(values[1].trim()) : 1);
+				float chance = (values.length > 2 ? Float.parseFloat(values[2].trim()) : -1.0F);
+				Entry entry = createEntry(skill, weight, chance);
+				if (entry != null && weight > 0) {
+					lists.computeIfAbsent(clazz, c -> new ArrayList<Entry>()).add(entry);
+				}
+			} catch (NumberFormatException e) {
+				DynamicSwordSkills.logger.warn("Invalid mob orb drop entry: " + line);
+			}
+		}
+		for (Map.Entry<Class<? extends Entity>, List<Entry>> e : lists.entrySet()) {
+			declared.put(e.getKey(), new Drops(e.getValue()));
+		}
+	}
+
+	/**
+	 * Returns the current table, building it from the config if necessary
+	 */
+	public static MobDropTable get() {
+		MobDropTable table = instance;
+		if (table == null) {
+			synchronized (MobDropTable.class) {
+				table = instance;
+				if (table == null) {
+					table = new MobDropTable(Config.getMobOrbDrops());
+					instance = table;
+				}
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Discards the current table so that it is rebuilt from the config on next use
+	 */
+	public static void invalidate() {
+		instance = null;
+	}
+
+	/**
+	 * Returns the specific drops for the entity's class, or null if it has none
+	 */
+	@Nullable
+	public Drops getDrops(EntityLivingBase entity) {
+		return resolved.get(entity.getClass());
+	}
+
+	/**
+	 * Returns a new entry for the skill using its configured drop chance, or null if there is no orb for the skill
+	 */
+	@Nullable
+	public static Entry createEntry(SkillBase skill) {
+		return createEntry(skill, 1, -1.0F);
+	}
+
+	/**
+	 * Returns a new entry for the skill with the given drop chance, or null if there is no orb for the skill
+	 */
+	@Nullable
+	public static Entry createEntry(SkillBase skill, float chance) {
+		return createEntry(skill, 1, chance);
+	}
+
+	@Nullable
+	private static Entry createEntry(SkillBase skill, int weight, float chance) {
+		int damage = ((IMetadataSkillItem) DynamicSwordSkills.skillOrb).getItemDamage(skill);
+		return (damage > -1 ? new Entry(skill, new ItemStack(DynamicSwordSkills.skillOrb, 1, damage), weight, chance) : null);
+	}
+
+	/**
+	 * The weighted entries for a single entity class
+	 */
+	public static class Drops
+	{
+		private final Entry[] entries;
+		private final int totalWeight;
+
+		private Drops(List<Entry> entries) {
+			this.entries = entries.toArray(new Entry[entries.size()]);
+			int total = 0;
+			for (Entry entry : this.entries) {
+				total += entry.weight;
+			}
+			this.totalWeight = total;
+		}
+
+		/** Returns an entry chosen at random according to the entry weights */
+		public Entry pick(Random rand) {
+			int i = rand.nextInt(totalWeight);
+			for (Entry entry : entries) {
+				i -= entry.weight;
+				if (i < 0) {
+					return entry;
+				}
+			}
+			return entries[entries.length - 1];
+		}
+	}
+
+	/**
+	 * A single skill orb drop
+	 */
+	public static class Entry
+	{
+		public final SkillBase skill;
+		private final ItemStack orb;
+		private final int weight;
+		/** Drop chance, or a negative value to use the skill's configured chance */
+		private final float chance;
+
+		private Entry(SkillBase skill, ItemStack orb, int weight, float chance) {
+			this.skill = skill;
+			this.orb = orb;
+			this.weight = weight;
+			this.chance = chance;
+		}
+
+		/** Returns a new copy of the orb stack to drop */
+		public ItemStack getOrb() {
+			return orb.copy();
+		}
+
+		/** Returns this entry's chance to drop, from 0.0F to 1.0F */
+		public float getChance() {
+			return (chance < 0.0F ? Config.getDropChance(orb.getItemDamage()) : chance);
+		}
+	}
+}
@@ -0,0 +1,235 @@
+/**
+    Copyright (C) <2017> <coolAlias>
+
+    This file is part of coolAlias' Dynamic Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package dynamicswordskills.loot;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.annotation.Nullable;
+
+import dynamicswordskills.DynamicSwordSkills;
+import dynamicswordskills.api.IMetadataSkillItem;
+import dynamicswordskills.api.SkillRegistry;
+import dynamicswordskills.ref.Config;
+import dynamicswordskills.skills.SkillActive;
+import dynamicswordskills.skills.SkillBase;
+import net.minecraft.util.ResourceLocation;
+
+/**
+ *
+ * Single source of random skills for loot, random skill items and skill orb drops.
+ *
+ * Built from the current config: only allowed skills are included, each weighted by its configured
+ * {@link Config#getSkillWeights() skill weight}, and orb drops additionally by the skill's drop chance.
+ * Each selection is drawn from a Walker / Vose alias table in constant time.
+ *
+ * Instances are immutable; the current one is replaced as a whole when the config changes, so a
+ * draw never sees a partially rebuilt table.
+ *
+ */
+public class SkillSampler
+{
+	private static volatile SkillSampler instance;
+
+	/** All allowed skills */
+	private final AliasTable skills;
+
+	/** Allowed skills that are {@link SkillActive}, e.g. for skill swords */
+	private final AliasTable activeSkills;
+
+	/** Allowed skills that have a skill orb, weighted by drop chance */
+	private final AliasTable orbSkills;
+
+	/** Chance that a random skill orb drop succeeds; see {@link #getOrbDropChance()} */
+	private final float orbDropChance;
+
+	private SkillSampler() {
+		Map<SkillBase, Integer> weights = parseWeights(Config.getSkillWeights());
+		List<SkillBase> all = new ArrayList<SkillBase>();
+		List<SkillBase> active = new ArrayList<SkillBase>();
+		List<SkillBase> orbs = new ArrayList<SkillBase>();
+		List<Double> allWeights = new ArrayList<Double>();
+		List<Double> activeWeights = new ArrayList<Double>();
+		List<Double> orbWeights = new ArrayList<Double>();
+		double orbTotal = 0.0D;
+		double orbAllowed = 0.0D;
+		for (SkillBase skill : SkillRegistry.getValues()) {
+			int weight = (weights.containsKey(skill) ? weights.get(skill) : 1);
+			int damage = (DynamicSwordSkills.skillOrb == null ? -1 : ((IMetadataSkillItem) DynamicSwordSkills.skillOrb).getItemDamage(skill));
+			if (damage > -1) {
+				orbTotal += weight;
+			}
+			if (weight < 1 || !Config.isSkillAllowed(skill)) {
+				continue;
+			}
+			all.add(skill);
+			allWeights.add((double) weight);
+			if (skill instanceof SkillActive) {
+				active.add(skill);
+				activeWeights.add((double) weight);
+			}
+			double chance = (damage > -1 ? weight * Config.getDropChance(damage) : 0.0D);
+			if (chance > 0.0D) {
+				orbs.add(skill);
+				orbWeights.add(chance);
+				orbAllowed += chance;
+			}
+		}
+		this.skills = new AliasTable(all, allWeights);
+		this.activeSkills = new AliasTable(active, activeWeights);
+		this.orbSkills = new AliasTable(orbs, orbWeights);
+		this.orbDropChance = (orbTotal > 0.0D ? (float)(orbAllowed / orbTotal) : 0.0F);
+	}
+
+	/**
+	 * Returns the current sampler, building it from the config if necessary
+	 */
+	public static SkillSampler get() {
+		SkillSampler sampler = instance;
+		if (sampler == null) {
+			synchronized (SkillSampler.class) {
+				sampler = instance;
+				if (sampler == null) {
+					sampler = new SkillSampler();
+					instance = sampler;
+				}
+			}
+		}
+		return sampler;
+	}
+
+	/**
+	 * Discards the current sampler so that it is rebuilt from the config on next use
+	 */
+	public static void invalidate() {
+		instance = null;
+	}
+
+	/** Returns true if at least one skill is allowed */
+	public boolean hasSkills() {
+		return !skills.isEmpty();
+	}
+
+	/** Returns a random allowed skill, or null if none are allowed */
+	@Nullable
+	public SkillBase drawSkill(Random rand) {
+		return skills.draw(rand);
+	}
+
+	/** Returns a random allowed {@link SkillActive} skill, or null if none are allowed */
+	@Nullable
+	public SkillBase drawActiveSkill(Random rand) {
+		return activeSkills.draw(rand);
+	}
+
+	/**
+	 * Returns a random skill for a skill orb drop in proportion to each skill's weight and drop chance,
+	 * or null if no skill orb can drop; the drop itself should only succeed with {@link #getOrbDropChance()}
+	 */
+	@Nullable
+	public SkillBase drawOrbSkill(Random rand) {
+		return orbSkills.draw(rand);
+	}
+
+	/**
+	 * Returns the chance, from 0.0F to 1.0F, that a random skill orb drop succeeds. Together with
+	 * {@link #drawOrbSkill} this equals choosing any skill orb by weight and then rolling against
+	 * that skill's drop chance, with disallowed skills never dropping.
+	 */
+	public float getOrbDropChance() {
+		return orbDropChance;
+	}
+
+	private static Map<SkillBase, Integer> parseWeights(String[] entries) {
+		Map<SkillBase, Integer> weights = new HashMap<SkillBase, Integer>();
+		for (String entry : entries) {
+			String[] parts = entry.trim().split("=");
+			SkillBase skill = (parts.length == 2 ? SkillRegistry.get(new ResourceLocation(parts[0].trim())) : null);
+			try {
+				if (skill == null) {
+					throw new NumberFormatException();
+				}
+				weights.put(skill, Math.max(0, Integer.parseInt(parts[1].trim())));
+			} catch (NumberFormatException e) {
+				DynamicSwordSkills.logger.warn("Invalid skill weight entry: " + entry);
+			}
+		}
+		return weights;
+	}
+
+	/**
+	 * Immutable alias table for drawing one of a fixed set of skills by weight in constant time
+	 */
+	private static class AliasTable
+	{
+		private final SkillBase[] skills;
+		private final double[] prob;
+		private final int[] alias;
+
+		private AliasTable(List<SkillBase> skills, List<Double> weights) {
+			int n = skills.size();
+			this.skills = skills.toArray(new SkillBase[n]);
+			this.prob = new double[n];
+			this.alias = new int[n];
+			double total = 0.0D;
+			for (double weight : weights) {
+				total += weight;
+			}
+			double[] scaled = new double[n];
+			Deque<Integer> small = new ArrayDeque<Integer>();
+			Deque<Integer> large = new ArrayDeque<Integer>();
+			for (int i = 0; i < n; ++i) {
+				scaled[i] = weights.get(i) * n / total;
+				(scaled[i] < 1.0D ? small : large).push(i);
+			}
+			while (!small.isEmpty() && !large.isEmpty()) {
+				int s = small.pop();
+				int l = large.pop();
+				prob[s] = scaled[s];
+				alias[s] = l;
+				scaled[l] = (scaled[l] + scaled[s]) - 1.0D;
+				(scaled[l] < 1.0D ? small : large).push(l);
+			}
+			// Remaining entries are 1.0 within rounding error
+			while (!large.isEmpty()) {
+				prob[large.pop()] = 1.0D;
+			}
+			while (!small.isEmpty()) {
+				prob[small.pop()] = 1.0D;
+			}
+		}
+
+		private boolean isEmpty() {
+			return skills.length == 0;
+		}
+
+		@Nullable
+		private SkillBase draw(Random rand) {
+			if (skills.length == 0) {
+				return null;
+			}
+			int i = rand.nextInt(skills.length);
+			return (rand.nextDouble() < prob[i] ? skills[i] : skills[alias[i]]);
+		}
+	}
+}
@@ -17,29 +17,24 @@
 
 package dynamicswordskills.loot.functions;
 
-import java.util.List;
 import java.util.Random;
-import java.util.stream.Collectors;
 
 import dynamicswordskills.DynamicSwordSkills;
 import dynamicswordskills.api.SkillRegistry;
+import dynamicswordskills.loot.SkillSampler;
 import dynamicswordskills.loot.conditions.SkillCondition;
 import dynamicswordskills.ref.Config;
 import dynamicswordskills.skills.SkillBase;
-import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.storage.loot.conditions.LootCondition;
 import net.minecraft.world.storage.loot.functions.LootFunction;
 
 /**
  * 
- * Provides an immutable list of enabled skills from which to select.
+ * Provides random selection from among the enabled skills via the {@link SkillSampler}.
  *
  */
 public abstract class SkillFunction extends LootFunction
 {
-	/** List of skills that are enabled and allowed as loot */
-	private static final List<SkillBase> SKILLS;
-
 	/** Skill to grant if not random */
 	protected String skill_name;
 
@@ -80,21 +75,13 @@ public abstract class SkillFunction extends LootFunction
 	 * Returns true if at least one skills is enabled
 	 */
 	public static boolean areSkillsEnabled() {
-		return !SkillFunction.SKILLS.isEmpty();
+		return SkillSampler.get().hasSkills();
 	}
 
 	/**
 	 * Returns a random skill from among all enabled skills, possibly null
 	 */
 	public static SkillBase getRandomSkill(Random rand) {
-		if (!SkillFunction.areSkillsEnabled()) {
-			return null;
-		}
-		int i = MathHelper.getInt(rand, 0, SkillFunction.SKILLS.size() - 1);
-		return SkillFunction.SKILLS.get(i);
-	}
-
-	static {
-		SKILLS = SkillRegistry.getValues().stream().filter(s -> Config.isSkillAllowed(s)).collect(Collectors.toList());
+		return SkillSampler.get().drawSkill(rand);
 	}
 }
@@ -105,6 +105,17 @@ public abstract class AbstractMessage<T extends AbstractMessage<T>> implements I
 		return null;
 	}
 
+	/**
+	 * Processes a message that arrived inside another, e.g. a {@link dynamicswordskills.network.client.BatchPacket BatchPacket},
+	 * whose own processing already ensured it is on the main thread
+	 */
+	protected static final void processBatched(AbstractMessage<?> msg, EntityPlayer player, Side side) {
+		if (!msg.isValidOnSide(side)) {
+			throw new RuntimeException("Invalid side " + side.name() + " for " + msg.getClass().getSimpleName());
+		}
+		msg.process(player, side);
+	}
+
 	/**
 	 * Ensures that the message is being handled on the main thread
 	 */
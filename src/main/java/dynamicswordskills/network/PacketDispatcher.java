@@ -17,10 +17,18 @@
 
 package dynamicswordskills.network;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 import dynamicswordskills.network.bidirectional.*;
 import dynamicswordskills.network.client.*;
 import dynamicswordskills.network.server.*;
+import dynamicswordskills.ref.Config;
 import dynamicswordskills.ref.ModInfo;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraftforge.fml.common.event.FMLPreInitializationEvent;
@@ -33,6 +41,10 @@ import net.minecraftforge.fml.relauncher.Side;
 /**
  * 
  * Houses the SimpleNetworkWrapper instance and provides wrapper methods for sending packets.
+ * 
+ * When packet batching is enabled in the config, messages sent to a single player from the server
+ * thread are queued instead and sent together in one {@link BatchPacket} per player at the end of
+ * the server tick, in the order they were sent.
  *
  */
 public class PacketDispatcher
@@ -41,6 +53,18 @@ public class PacketDispatcher
 
 	private static final SimpleNetworkWrapper dispatcher = NetworkRegistry.INSTANCE.newSimpleChannel(ModInfo.CHANNEL);
 
+	/** Message classes indexed by packet id, for messages nested in a {@link BatchPacket} */
+	private static final List<Class<? extends AbstractMessage<?>>> messageTypes = new ArrayList<Class<? extends AbstractMessage<?>>>();
+
+	/** Packet id for each message class */
+	private static final Map<Class<?>, Byte> messageIds = new IdentityHashMap<Class<?>, Byte>();
+
+	/** Messages queued for each player during the current server tick; only accessed from the server thread */
+	private static final Map<EntityPlayerMP, BatchPacket> queued = new IdentityHashMap<EntityPlayerMP, BatchPacket>();
+
+	/** Reused buffer for measuring messages added to a batch */
+	private static final ByteBuf scratch = Unpooled.buffer(256);
+
 	/**
 	 *  Registers all packets and handlers - call this during {@link FMLPreInitializationEvent}
 	 */
@@ -52,11 +76,14 @@ public class PacketDispatcher
 		registerMessage(PlaySoundPacket.class);
 
 		// Packets handled on CLIENT
+		registerMessage(BatchPacket.class);
+		registerMessage(DashCorrectionPacket.class);
 		registerMessage(EndingBlowPacket.class);
 		registerMessage(MortalDrawPacket.class);
 		registerMessage(SyncConfigPacket.class);
 		registerMessage(SyncPlayerInfoPacket.class);
 		registerMessage(SyncSkillPacket.class);
+		registerMessage(TargetDroppedPacket.class);
 		registerMessage(UpdateComboPacket.class);
 
 		// Packets handled on SERVER
@@ -74,6 +101,8 @@ public class PacketDispatcher
 	 * Registers an {@link AbstractMessage} to the appropriate side(s)
 	 */
 	private static final <T extends AbstractMessage<T> & IMessageHandler<T, IMessage>> void registerMessage(Class<T> clazz) {
+		messageIds.put(clazz, packetId);
+		messageTypes.add(clazz);
 		if (AbstractMessage.AbstractClientMessage.class.isAssignableFrom(clazz)) {
 			PacketDispatcher.dispatcher.registerMessage(clazz, clazz, packetId++, Side.CLIENT);
 		} else if (AbstractMessage.AbstractServerMessage.class.isAssignableFrom(clazz)) {
@@ -85,11 +114,65 @@ public class PacketDispatcher
 	}
 
 	/**
-	 * Send this message to the specified player's client-side counterpart.
+	 * Returns the packet id under which the message's class was registered
+	 */
+	public static int getMessageId(AbstractMessage<?> message) {
+		Byte id = messageIds.get(message.getClass());
+		if (id == null) {
+			throw new IllegalArgumentException("Unregistered message " + message.getClass().getSimpleName());
+		}
+		return id & 0xFF;
+	}
+
+	/**
+	 * Returns a new, empty instance of the message registered with the packet id
+	 */
+	public static AbstractMessage<?> newMessage(int id) {
+		if (id < 0 || id >= messageTypes.size()) {
+			throw new IllegalArgumentException("Invalid packet id " + id);
+		}
+		try {
+			return messageTypes.get(id).newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new RuntimeException("Failed to create message with packet id " + id, e);
+		}
+	}
+
+	/**
+	 * Send this message to the specified player's client-side counterpart,
+	 * or queue it until the end of the tick if packet batching is enabled.
 	 * See {@link SimpleNetworkWrapper#sendTo(IMessage, EntityPlayerMP)}
 	 */
 	public static final void sendTo(IMessage message, EntityPlayerMP player) {
-		PacketDispatcher.dispatcher.sendTo(message, player);
+		if (Config.isPacketBatchingEnabled() && message instanceof AbstractMessage && player.getServerWorld().isCallingFromMinecraftThread()) {
+			queue((AbstractMessage<?>) message, player);
+		} else {
+			PacketDispatcher.dispatcher.sendTo(message, player);
+		}
+	}
+
+	private static void queue(AbstractMessage<?> message, EntityPlayerMP player) {
+		BatchPacket batch = queued.get(player);
+		if (batch == null) {
+			batch = new BatchPacket(256);
+			queued.put(player, batch);
+		}
+		batch.add(message, scratch);
+	}
+
+	/**
+	 * Sends all messages queued during this tick, one packet per player; call at the end of each server tick
+	 */
+	public static void flushQueued() {
+		if (queued.isEmpty()) {
+			return;
+		}
+		for (Map.Entry<EntityPlayerMP, BatchPacket> entry : queued.entrySet()) {
+			if (!entry.getKey().hasDisconnected()) {
+				PacketDispatcher.dispatcher.sendTo(entry.getValue(), entry.getKey());
+			}
+		}
+		queued.clear();
 	}
 
 	/**
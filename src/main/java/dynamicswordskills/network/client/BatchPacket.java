@@ -0,0 +1,95 @@
+/**
+    Copyright (C) <2017> <coolAlias>
+
+    This file is part of coolAlias' Dynamic Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package dynamicswordskills.network.client;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import dynamicswordskills.network.AbstractMessage;
+import dynamicswordskills.network.AbstractMessage.AbstractClientMessage;
+import dynamicswordskills.network.PacketDispatcher;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.fml.relauncher.Side;
+
+/**
+ * 
+ * Carries every DSS message queued for one player during a server tick in a single packet;
+ * see {@link PacketDispatcher#flushQueued()}.
+ * 
+ * Each message is written as its byte id, a varint length, and its own payload, in the order
+ * queued, and is processed in that same order when received.
+ *
+ */
+public class BatchPacket extends AbstractClientMessage<BatchPacket>
+{
+	/** Framed messages written by {@link #add}, only used on the sending side */
+	private final PacketBuffer payload;
+
+	/** Messages read from the packet, only used on the receiving side */
+	private final List<AbstractMessage<?>> messages = new ArrayList<AbstractMessage<?>>();
+
+	public BatchPacket() {
+		this.payload = null;
+	}
+
+	/**
+	 * Creates an empty batch; messages must be added from the server thread
+	 */
+	public BatchPacket(int initialCapacity) {
+		this.payload = new PacketBuffer(Unpooled.buffer(initialCapacity));
+	}
+
+	/**
+	 * Writes the message into the batch immediately, so later changes to the message are not sent
+	 * @param scratch Buffer used to measure the message, cleared before use
+	 */
+	public void add(AbstractMessage<?> message, ByteBuf scratch) {
+		scratch.clear();
+		message.toBytes(scratch);
+		payload.writeByte(PacketDispatcher.getMessageId(message));
+		payload.writeVarInt(scratch.readableBytes());
+		payload.writeBytes(scratch);
+	}
+
+	@Override
+	protected void read(PacketBuffer buffer) throws IOException {
+		while (buffer.isReadable()) {
+			int id = buffer.readUnsignedByte();
+			int length = buffer.readVarInt();
+			AbstractMessage<?> message = PacketDispatcher.newMessage(id);
+			message.fromBytes(buffer.readSlice(length));
+			messages.add(message);
+		}
+	}
+
+	@Override
+	protected void write(PacketBuffer buffer) throws IOException {
+		buffer.writeBytes(payload, payload.readerIndex(), payload.readableBytes());
+	}
+
+	@Override
+	protected void process(EntityPlayer player, Side side) {
+		for (int i = 0; i < messages.size(); ++i) {
+			processBatched(messages.get(i), player, side);
+		}
+	}
+}
@@ -0,0 +1,76 @@
+/**
+    Copyright (C) <2017> <coolAlias>
+
+    This file is part of coolAlias' Dynamic Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package dynamicswordskills.network.client;
+
+import java.io.IOException;
+
+import dynamicswordskills.entity.DSSPlayerInfo;
+import dynamicswordskills.network.AbstractMessage.AbstractClientMessage;
+import dynamicswordskills.skills.Dash;
+import dynamicswordskills.skills.SkillBase;
+import dynamicswordskills.skills.Skills;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.fml.relauncher.Side;
+
+/**
+ * 
+ * Sent by the server only when the impact position predicted by the client's {@link Dash}
+ * was too far from the server's own, so the client can shift by the difference to the authoritative position.
+ *
+ */
+public class DashCorrectionPacket extends AbstractClientMessage<DashCorrectionPacket>
+{
+	/** Sequence number of the dash being corrected */
+	private byte sequence;
+
+	private double x, y, z;
+
+	public DashCorrectionPacket() {}
+
+	public DashCorrectionPacket(byte sequence, EntityPlayer player) {
+		this.sequence = sequence;
+		this.x = player.posX;
+		this.y = player.posY;
+		this.z = player.posZ;
+	}
+
+	@Override
+	protected void read(PacketBuffer buffer) throws IOException {
+		this.sequence = buffer.readByte();
+		this.x = buffer.readDouble();
+		this.y = buffer.readDouble();
+		this.z = buffer.readDouble();
+	}
+
+	@Override
+	protected void write(PacketBuffer buffer) throws IOException {
+		buffer.writeByte(sequence);
+		buffer.writeDouble(x);
+		buffer.writeDouble(y);
+		buffer.writeDouble(z);
+	}
+
+	@Override
+	protected void process(EntityPlayer player, Side side) {
+		SkillBase skill = DSSPlayerInfo.get(player).getActiveSkill(Skills.dash);
+		if (skill instanceof Dash) {
+			((Dash) skill).onCorrection(player, sequence, x, y, z);
+		}
+	}
+}
@@ -19,8 +19,8 @@ package dynamicswordskills.network.client;
 
 import java.io.IOException;
 
+import io.netty.buffer.Unpooled;
 import net.minecraft.entity.player.EntityPlayer;
-import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.network.PacketBuffer;
 import net.minecraftforge.fml.relauncher.Side;
 import dynamicswordskills.entity.DSSPlayerInfo;
@@ -33,8 +33,8 @@ import dynamicswordskills.network.AbstractMessage.AbstractClientMessage;
  */
 public class SyncPlayerInfoPacket extends AbstractClientMessage<SyncPlayerInfoPacket>
 {
-	/** NBTTagCompound used to store and transfer the Player's Info */
-	private NBTTagCompound compound;
+	/** The Player's Info as written by {@link DSSPlayerInfo#writeToBuffer}, captured when the packet is created */
+	private PacketBuffer data;
 
 	/** Whether skills should validate; only false when skills reset */
 	private boolean validate = true;
@@ -42,8 +42,8 @@ public class SyncPlayerInfoPacket extends AbstractClientMessage<SyncPlayerInfoPa
 	public SyncPlayerInfoPacket() {}
 
 	public SyncPlayerInfoPacket(DSSPlayerInfo info) {
-		compound = new NBTTagCompound();
-		info.writeNBT(compound);
+		data = new PacketBuffer(Unpooled.buffer());
+		info.writeToBuffer(data);
 	}
 
 	/**
@@ -56,20 +56,20 @@ public class SyncPlayerInfoPacket extends AbstractClientMessage<SyncPlayerInfoPa
 
 	@Override
 	protected void read(PacketBuffer buffer) throws IOException {
-		compound = buffer.readCompoundTag();
 		validate = buffer.readBoolean();
+		data = new PacketBuffer(buffer.readBytes(buffer.readableBytes()));
 	}
 
 	@Override
 	protected void write(PacketBuffer buffer) throws IOException {
-		buffer.writeCompoundTag(compound);
 		buffer.writeBoolean(validate);
+		buffer.writeBytes(data, data.readerIndex(), data.readableBytes());
 	}
 
 	@Override
 	protected void process(EntityPlayer player, Side side) {
 		DSSPlayerInfo info = DSSPlayerInfo.get(player);
-		info.readNBT(compound);
+		info.readFromBuffer(data);
 		if (validate) {
 			info.validateSkills();
 		}
@@ -22,8 +22,8 @@ import java.io.IOException;
 import dynamicswordskills.entity.DSSPlayerInfo;
 import dynamicswordskills.network.AbstractMessage.AbstractClientMessage;
 import dynamicswordskills.skills.SkillBase;
+import io.netty.buffer.Unpooled;
 import net.minecraft.entity.player.EntityPlayer;
-import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.network.PacketBuffer;
 import net.minecraftforge.fml.relauncher.Side;
 
@@ -34,8 +34,8 @@ import net.minecraftforge.fml.relauncher.Side;
  */
 public class SyncSkillPacket extends AbstractClientMessage<SyncSkillPacket>
 {
-	/** Stores the skill's data */
-	private NBTTagCompound compound;
+	/** The skill as written by {@link SkillBase#writeToBuffer}, captured when the packet is created */
+	private PacketBuffer data;
 
 	public SyncSkillPacket() {}
 
@@ -44,21 +44,23 @@ public class SyncSkillPacket extends AbstractClientMessage<SyncSkillPacket>
 	 * @param skill A level 0 skill will be removed
 	 */
 	public SyncSkillPacket(SkillBase skill) {
-		compound = skill.writeToNBT();
+		data = new PacketBuffer(Unpooled.buffer());
+		skill.writeToBuffer(data);
 	}
 
 	@Override
 	protected void read(PacketBuffer buffer) throws IOException {
-		compound = buffer.readCompoundTag();
+		data = new PacketBuffer(buffer.readBytes(buffer.readableBytes()));
 	}
 
 	@Override
 	protected void write(PacketBuffer buffer) throws IOException {
-		buffer.writeCompoundTag(compound);
+		buffer.writeBytes(data, data.readerIndex(), data.readableBytes());
 	}
 
 	@Override
 	protected void process(EntityPlayer player, Side side) {
-		DSSPlayerInfo.get(player).syncClientSideSkill(SkillBase.loadFromNBT(compound));
+		// Skills are only created on the main thread, as their constructors and data readers may touch game state
+		DSSPlayerInfo.get(player).syncClientSideSkill(SkillBase.loadFromBuffer(data));
 	}
 }
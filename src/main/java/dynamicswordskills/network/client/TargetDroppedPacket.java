@@ -0,0 +1,65 @@
+/**
+    Copyright (C) <2017> <coolAlias>
+
+    This file is part of coolAlias' Dynamic Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package dynamicswordskills.network.client;
+
+import java.io.IOException;
+
+import dynamicswordskills.entity.DSSPlayerInfo;
+import dynamicswordskills.network.AbstractMessage.AbstractClientMessage;
+import dynamicswordskills.skills.ILockOnTarget;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.fml.relauncher.Side;
+
+/**
+ * 
+ * Informs the client that the server dropped the current ILockOnTarget skill's target on its own,
+ * e.g. because it moved out of range or sight.
+ * 
+ * Carries the server's most recently accepted target sequence number so that the client can ignore
+ * the message if it has since chosen a newer target that the server has not yet received.
+ *
+ */
+public class TargetDroppedPacket extends AbstractClientMessage<TargetDroppedPacket>
+{
+	private int sequence;
+
+	public TargetDroppedPacket() {}
+
+	public TargetDroppedPacket(int sequence) {
+		this.sequence = sequence;
+	}
+
+	@Override
+	protected void read(PacketBuffer buffer) throws IOException {
+		this.sequence = buffer.readVarInt();
+	}
+
+	@Override
+	protected void write(PacketBuffer buffer) throws IOException {
+		buffer.writeVarInt(sequence);
+	}
+
+	@Override
+	protected void process(EntityPlayer player, Side side) {
+		ILockOnTarget skill = DSSPlayerInfo.get(player).getTargetingSkill();
+		if (skill != null) {
+			skill.onTargetDropped(player, sequence);
+		}
+	}
+}
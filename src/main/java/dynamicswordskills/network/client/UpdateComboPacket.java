@@ -27,45 +27,158 @@ import dynamicswordskills.skills.Combo;
 import dynamicswordskills.skills.IComboSkill;
 import dynamicswordskills.skills.SkillBase;
 import net.minecraft.entity.player.EntityPlayer;
-import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.network.PacketBuffer;
 import net.minecraftforge.fml.relauncher.Side;
 
 /**
  * 
  * Packet responsible for keeping attack Combos synchronized between server and client.
+ * 
+ * A full snapshot is sent when a combo starts; each later change is sent as a small
+ * typed update that the client applies to its existing Combo instance.
  *
  */
 public class UpdateComboPacket extends AbstractClientMessage<UpdateComboPacket>
 {
-	/** Stores data of combo to be updated */
-	private NBTTagCompound compound;
+	public static enum Type {
+		/** Full combo state, replacing the client's current combo */
+		SNAPSHOT,
+		/** A hit was added to the combo */
+		HIT,
+		/** Damage was added without increasing the combo size */
+		DAMAGE,
+		/** The combo ended */
+		FINISH;
+	}
+
+	private Type type;
+
+	/** Id of the combo's skill */
+	private byte skillId;
+
+	/** Combo to write for {@link Type#SNAPSHOT}; the combo read when received */
+	private Combo combo;
+
+	/** Damage added for {@link Type#HIT} and {@link Type#DAMAGE} */
+	private float damage;
+
+	/** Last entity hit and consecutive hit count for {@link Type#HIT} */
+	private int entityId, consecutiveHits;
 
 	public UpdateComboPacket() {}
 
-	public UpdateComboPacket(Combo combo) {
-		compound = combo.writeToNBT();
+	private UpdateComboPacket(Type type, Combo combo) {
+		this.type = type;
+		this.skillId = combo.getSkillId();
+		this.combo = combo;
+	}
+
+	/** Returns a packet containing the full state of the combo */
+	public static UpdateComboPacket snapshot(Combo combo) {
+		return new UpdateComboPacket(Type.SNAPSHOT, combo);
+	}
+
+	/** Returns a packet for a hit that was just added to the combo */
+	public static UpdateComboPacket hit(Combo combo, float damage) {
+		UpdateComboPacket packet = new UpdateComboPacket(Type.HIT, combo);
+		packet.damage = damage;
+		packet.entityId = (combo.getLastEntityHit() != null ? combo.getLastEntityHit().getEntityId() : 0);
+		packet.consecutiveHits = combo.getConsecutiveHits();
+		return packet;
+	}
+
+	/** Returns a packet for damage that was just added to the combo without a hit */
+	public static UpdateComboPacket damage(Combo combo, float damage) {
+		UpdateComboPacket packet = new UpdateComboPacket(Type.DAMAGE, combo);
+		packet.damage = damage;
+		return packet;
+	}
+
+	/** Returns a packet for the end of the combo */
+	public static UpdateComboPacket finish(Combo combo) {
+		return new UpdateComboPacket(Type.FINISH, combo);
 	}
 
 	@Override
 	protected void read(PacketBuffer buffer) throws IOException {
-		compound = buffer.readCompoundTag();
+		type = buffer.readEnumValue(Type.class);
+		switch (type) {
+		case SNAPSHOT:
+			combo = Combo.readSnapshot(buffer);
+			skillId = combo.getSkillId();
+			break;
+		case HIT:
+			skillId = buffer.readByte();
+			damage = buffer.readFloat();
+			entityId = buffer.readInt();
+			consecutiveHits = buffer.readVarInt();
+			break;
+		case DAMAGE:
+			skillId = buffer.readByte();
+			damage = buffer.readFloat();
+			break;
+		case FINISH:
+			skillId = buffer.readByte();
+			break;
+		}
 	}
 
 	@Override
 	protected void write(PacketBuffer buffer) throws IOException {
-		buffer.writeCompoundTag(compound);
+		buffer.writeEnumValue(type);
+		switch (type) {
+		case SNAPSHOT:
+			combo.writeSnapshot(buffer);
+			break;
+		case HIT:
+			buffer.writeByte(skillId);
+			buffer.writeFloat(damage);
+			buffer.writeInt(entityId);
+			buffer.writeVarInt(consecutiveHits);
+			break;
+		case DAMAGE:
+			buffer.writeByte(skillId);
+			buffer.writeFloat(damage);
+			break;
+		case FINISH:
+			buffer.writeByte(skillId);
+			break;
+		}
 	}
 
 	@Override
 	protected void process(EntityPlayer player, Side side) {
-		Combo combo = Combo.readFromNBT(compound);
-		SkillBase skill = DSSPlayerInfo.get(player).getPlayerSkill(SkillRegistry.getSkillById(combo.getSkillId()));
-		if (skill instanceof IComboSkill) {
+		DSSPlayerInfo info = DSSPlayerInfo.get(player);
+		SkillBase skill = info.getPlayerSkill(SkillRegistry.getSkillById(skillId));
+		if (!(skill instanceof IComboSkill)) {
+			DynamicSwordSkills.logger.error("Invalid Combo skill id: " + skillId);
+			return;
+		}
+		IComboSkill comboSkill = (IComboSkill) skill;
+		if (type == Type.SNAPSHOT) {
 			combo.getEntityFromWorld(player.getEntityWorld());
-			((IComboSkill) skill).setCombo(combo);
-		} else {
-			DynamicSwordSkills.logger.error("Invalid Combo skill id: " + combo.getSkillId());
+			comboSkill.setCombo(combo);
+			info.markHookState();
+			return;
+		}
+		Combo current = comboSkill.getCombo();
+		if (current == null) {
+			DynamicSwordSkills.logger.debug("Received combo " + type + " update without a current combo for skill id " + skillId);
+			return;
+		}
+		switch (type) {
+		case HIT:
+			current.onHitReceived(player.getEntityWorld(), damage, entityId, consecutiveHits);
+			break;
+		case DAMAGE:
+			current.onDamageReceived(damage);
+			break;
+		case FINISH:
+			current.onFinishReceived();
+			break;
+		default:
+			break;
 		}
+		info.markHookState();
 	}
 }
@@ -19,6 +19,8 @@ package dynamicswordskills.network.server;
 
 import java.io.IOException;
 
+import javax.annotation.Nullable;
+
 import dynamicswordskills.DynamicSwordSkills;
 import dynamicswordskills.entity.DSSPlayerInfo;
 import dynamicswordskills.network.AbstractMessage.AbstractServerMessage;
@@ -28,6 +30,7 @@ import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.network.PacketBuffer;
 import net.minecraft.util.math.RayTraceResult;
+import net.minecraft.util.math.Vec3d;
 import net.minecraftforge.fml.relauncher.Side;
 
 /**
@@ -43,6 +46,9 @@ import net.minecraftforge.fml.relauncher.Side;
  * weird, considering it works fine for entities like arrows. Hm.
  * 
  * Also need to send the player's motionX and motionZ, as the server values are typically zero.
+ * 
+ * The client's starting and impact positions and the dash's sequence number are sent as well, so that
+ * the server can replay the impact from the same inputs the client used; see {@link Dash#onImpact}.
  *
  */
 public class DashImpactPacket extends AbstractServerMessage<DashImpactPacket>
@@ -53,17 +59,30 @@ public class DashImpactPacket extends AbstractServerMessage<DashImpactPacket>
 	/** Stores the entity's ID until it can be retrieved from the world during handling */
 	private int entityId;
 
+	/** Client's sequence number for the dash */
+	private byte sequence;
+
+	/** Player's position on the client when the dash started */
+	private Vec3d start;
+
+	/** Player's position on the client at the moment of impact */
+	private Vec3d impact;
+
 	public DashImpactPacket() {}
 
 	/**
 	 * Creates dash packet with given moving object position
-	 * @param mop Must not be null
+	 * @param result	Null if a block was collided with horizontally
+	 * @param start		Player's position when the dash started; if null, the current position is used
 	 */
-	public DashImpactPacket(EntityPlayer player, RayTraceResult result) {
+	public DashImpactPacket(EntityPlayer player, @Nullable RayTraceResult result, byte sequence, @Nullable Vec3d start) {
 		this.hitType = (result != null ? (byte) result.typeOfHit.ordinal() : (byte) RayTraceResult.Type.MISS.ordinal());
 		if (this.hitType == RayTraceResult.Type.ENTITY.ordinal()) {
 			this.entityId = result.entityHit.getEntityId();
 		}
+		this.sequence = sequence;
+		this.impact = player.getPositionVector();
+		this.start = (start == null ? this.impact : start);
 	}
 
 	@Override
@@ -72,6 +91,9 @@ public class DashImpactPacket extends AbstractServerMessage<DashImpactPacket>
 		if (hitType == RayTraceResult.Type.ENTITY.ordinal()) {
 			entityId = buffer.readInt();
 		}
+		sequence = buffer.readByte();
+		start = new Vec3d(buffer.readDouble(), buffer.readDouble(), buffer.readDouble());
+		impact = new Vec3d(buffer.readDouble(), buffer.readDouble(), buffer.readDouble());
 	}
 
 	@Override
@@ -80,6 +102,13 @@ public class DashImpactPacket extends AbstractServerMessage<DashImpactPacket>
 		if (hitType == RayTraceResult.Type.ENTITY.ordinal()) {
 			buffer.writeInt(entityId);
 		}
+		buffer.writeByte(sequence);
+		buffer.writeDouble(start.x);
+		buffer.writeDouble(start.y);
+		buffer.writeDouble(start.z);
+		buffer.writeDouble(impact.x);
+		buffer.writeDouble(impact.y);
+		buffer.writeDouble(impact.z);
 	}
 
 	@Override
@@ -95,7 +124,7 @@ public class DashImpactPacket extends AbstractServerMessage<DashImpactPacket>
 					DynamicSwordSkills.logger.warn("Could not retrieve valid entity for MovingObjectPosition while handling Dash Packet!");
 				}
 			}
-			dash.onImpact(player.getEntityWorld(), player, result);
+			dash.onImpact(player.getEntityWorld(), player, result, sequence, start, impact);
 		}
 	}
 }
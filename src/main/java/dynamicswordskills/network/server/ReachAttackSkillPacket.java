@@ -22,23 +22,37 @@ import java.io.IOException;
 import dynamicswordskills.api.SkillRegistry;
 import dynamicswordskills.entity.DSSPlayerInfo;
 import dynamicswordskills.entity.DirtyEntityAccessor;
+import dynamicswordskills.entity.PositionHistory;
+import dynamicswordskills.entity.SkillTickManager;
 import dynamicswordskills.network.AbstractMessage.AbstractServerMessage;
 import dynamicswordskills.skills.IReachAttackSkill;
 import dynamicswordskills.skills.SkillActive;
 import dynamicswordskills.skills.SkillBase;
+import dynamicswordskills.util.TargetUtils;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.network.PacketBuffer;
+import net.minecraft.util.math.MathHelper;
 import net.minecraftforge.fml.relauncher.Side;
 
 /**
  * 
  * Processes an {@link IReachAttackSkill}'s attack on the server.
+ * 
+ * The client chose its target from positions that are already out of date by the time the packet arrives,
+ * so a target that is out of range or sight now is checked again against its {@link PositionHistory},
+ * rewound by the player's latency and clamped to the length of the history.
  *
  */
 public class ReachAttackSkillPacket extends AbstractServerMessage<ReachAttackSkillPacket>
 {
+	/** Ticks the client's view of other entities lags behind their latest sent position, due to interpolation */
+	private static final int INTERPOLATION_TICKS = 1;
+
+	/** Ticks either side of the estimated client time at which rewound positions are accepted */
+	private static final int REWIND_TOLERANCE = 1;
+
 	/** The currently active reach attack skill */
 	private byte skillId;
 
@@ -72,7 +86,7 @@ public class ReachAttackSkillPacket extends AbstractServerMessage<ReachAttackSki
 		if (skill instanceof IReachAttackSkill && skill.isActive() && target != null && !player.isSpectator()) {
 			((EntityPlayerMP) player).markPlayerActive();
 			double range = ((IReachAttackSkill) skill).getAttackRange(player);
-			if (player.canEntityBeSeen(target) && player.getDistanceSq(target) <= (range * range)) {
+			if (canReach(player, target, range)) {
 				player.attackTargetEntityWithCurrentItem(target);
 				int ticks = ((IReachAttackSkill) skill).getTicksSinceLastSwing(player);
 				if (ticks > 0) {
@@ -81,4 +95,34 @@ public class ReachAttackSkillPacket extends AbstractServerMessage<ReachAttackSki
 			}
 		}
 	}
+
+	/**
+	 * Returns true if the target is within range and sight of the player either now or at about the time
+	 * the player's client saw it, based on the connection's latency
+	 */
+	private static boolean canReach(EntityPlayer player, Entity target, double range) {
+		double rangeSq = range * range;
+		if (player.getDistanceSq(target) <= rangeSq && TargetUtils.canSeeTarget(player, target)) {
+			return true;
+		}
+		SkillTickManager manager = SkillTickManager.getIfPresent(player.getEntityWorld());
+		PositionHistory history = (manager == null ? null : manager.getHistory(target));
+		if (history == null) {
+			return false;
+		}
+		int rewind = Math.round(((EntityPlayerMP) player).ping / 50.0F) + INTERPOLATION_TICKS;
+		long tick = player.getEntityWorld().getTotalWorldTime() - MathHelper.clamp(rewind, 0, PositionHistory.LENGTH - 1);
+		double eyeY = player.posY + player.getEyeHeight();
+		for (int age = 0; age < history.size(); ++age) {
+			int i = history.getIndex(age);
+			if (Math.abs(history.getTick(i) - tick) > REWIND_TOLERANCE) {
+				continue;
+			}
+			double x = history.getX(i), y = history.getY(i), z = history.getZ(i);
+			if (player.getDistanceSq(x, y, z) <= rangeSq && !TargetUtils.getVoxelRaycaster().trace(player.getEntityWorld(), player.posX, eyeY, player.posZ, x, y + target.getEyeHeight(), z, false, false)) {
+				return true;
+			}
+		}
+		return false;
+	}
 }
@@ -23,7 +23,6 @@ import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.network.PacketBuffer;
 import net.minecraftforge.fml.relauncher.Side;
-import dynamicswordskills.DynamicSwordSkills;
 import dynamicswordskills.entity.DSSPlayerInfo;
 import dynamicswordskills.network.AbstractMessage.AbstractServerMessage;
 import dynamicswordskills.skills.ILockOnTarget;
@@ -32,28 +31,31 @@ import dynamicswordskills.skills.SkillBase;
 /**
  * 
  * This packet updates the server with the current target for currently active ILockOnTarget skill.
+ * 
+ * Each packet carries the skill's target sequence number so that the server can discard updates
+ * arriving out of order; the client only sends this packet when its selected target changes.
  *
  */
 public class TargetIdPacket extends AbstractServerMessage<TargetIdPacket>
 {
-	/** Current target from ILockOnTarget skill */
-	private Entity targetEntity;
-
-	/** Entity Id of above entity */
-	private int entityId;
+	/** Entity Id of the current target, or -1 if there is no target */
+	private int entityId = -1;
 
-	/** True if current target entity is null */
-	boolean isNull = false;
+	/** Sequence number of this target change */
+	private int sequence;
 
 	public TargetIdPacket() {}
 
 	/**
 	 * Constructs packet that will update the provided skill's current target on the server
+	 * @param sequence See {@link DSSPlayerInfo#getTargetSequence()}
 	 * @throws IllegalArgumentException if SkillBase is not an instance of ILockOnTarget
 	 */
-	public TargetIdPacket(SkillBase skill) throws IllegalArgumentException {
+	public TargetIdPacket(SkillBase skill, int sequence) throws IllegalArgumentException {
 		if (skill instanceof ILockOnTarget) {
-			this.targetEntity = ((ILockOnTarget) skill).getCurrentTarget();
+			Entity target = ((ILockOnTarget) skill).getCurrentTarget();
+			this.entityId = (target == null ? -1 : target.getEntityId());
+			this.sequence = sequence;
 		} else {
 			throw new IllegalArgumentException("Parameter 'skill' must be an instance of ILockOnTarget while constructing TargetIdPacket");
 		}
@@ -61,18 +63,20 @@ public class TargetIdPacket extends AbstractServerMessage<TargetIdPacket>
 
 	@Override
 	protected void read(PacketBuffer buffer) throws IOException {
+		this.sequence = buffer.readVarInt();
 		if (buffer.readByte() == 1) {
 			this.entityId = buffer.readInt();
 		} else {
-			this.isNull = true;
+			this.entityId = -1;
 		}
 	}
 
 	@Override
 	protected void write(PacketBuffer buffer) throws IOException {
-		if (targetEntity != null) {
+		buffer.writeVarInt(sequence);
+		if (entityId >= 0) {
 			buffer.writeByte((byte) 1);
-			buffer.writeInt(targetEntity.getEntityId());
+			buffer.writeInt(entityId);
 		} else {
 			buffer.writeByte((byte) 0);
 		}
@@ -82,15 +86,7 @@ public class TargetIdPacket extends AbstractServerMessage<TargetIdPacket>
 	protected void process(EntityPlayer player, Side side) {
 		ILockOnTarget skill = DSSPlayerInfo.get(player).getTargetingSkill();
 		if (skill != null) {
-			if (isNull) {
-				skill.setCurrentTarget(player, null);
-			} else {
-				targetEntity = player.getEntityWorld().getEntityByID(entityId);
-				skill.setCurrentTarget(player, targetEntity);
-				if (targetEntity == null) { // For some reason the target id is sometimes incorrect or out of date
-					DynamicSwordSkills.logger.warn("Invalid target; entity with id " + entityId + " is null");
-				}
-			}
+			skill.onTargetIdReceived(player, entityId, sequence);
 		}
 	}
 }
@@ -36,9 +36,13 @@ import dynamicswordskills.api.SkillRegistry;
 import dynamicswordskills.client.gui.IGuiOverlay.HALIGN;
 import dynamicswordskills.client.gui.IGuiOverlay.VALIGN;
 import dynamicswordskills.entity.DSSPlayerInfo;
+import dynamicswordskills.loot.MobDropTable;
+import dynamicswordskills.loot.SkillSampler;
 import dynamicswordskills.network.client.SyncConfigPacket;
 import dynamicswordskills.skills.SkillBase;
 import dynamicswordskills.skills.Skills;
+import dynamicswordskills.util.MobClassifier;
+import dynamicswordskills.util.TickWatchdog;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.util.ResourceLocation;
 import net.minecraftforge.common.config.Configuration;
@@ -58,6 +62,7 @@ public class Config
 	private static boolean enableAutoTarget;
 	private static boolean enableTargetPassive;
 	private static boolean enableTargetPlayer;
+	private static Map<ResourceLocation, Boolean> hostilityOverrides = Maps.<ResourceLocation, Boolean>newHashMap();
 	private static boolean allowVanillaControls;
 	private static boolean requireDoubleTap;
 	private static boolean requireLockOn;
@@ -100,6 +105,10 @@ public class Config
 	private static boolean backSliceDisarmorPlayer;
 	private static Set<String> bannedSkills = Sets.<String>newHashSet();
 	private static int baseSwingSpeed;
+	private static boolean combatLogEnable;
+	private static int combatLogFileSize;
+	private static int combatLogMaxFiles;
+	private static boolean packetBatching;
 	private static float parryDisarmTimingBonus;
 	private static float parryDisarmPenalty;
 	private static boolean requireFullHealth;
@@ -107,6 +116,7 @@ public class Config
 	private static boolean skillSwordCreative;
 	private static int skillSwordCreativeLevel;
 	private static boolean skillSwordRandom;
+	private static int tickBudget;
 	/* Loot / drops settings */
 	private static boolean bonusOrbEnable;
 	private static int orbLootWeight;
@@ -114,6 +124,10 @@ public class Config
 	private static boolean orbDropEnable;
 	private static float orbDropGeneralChance;
 	private static float orbDropRandomChance;
+	/** Relative weights for random skill selection; see {@link SkillSampler} */
+	private static String[] skillWeights = new String[0];
+	/** Specific skill orb drops for mobs; see {@link MobDropTable} */
+	private static String[] mobOrbDrops = new String[0];
 	private static boolean playerDropEnable;
 	private static int playerDropFactor;
 	private static int skillSwordLootWeight;
@@ -131,6 +145,17 @@ public class Config
 		enableAutoTarget = config.get(Configuration.CATEGORY_CLIENT, "dss.config.client.enableAutoTarget", true, "Enable auto-targeting when locked on and the current target becomes invalid").getBoolean(true);
 		enableTargetPassive = config.get(Configuration.CATEGORY_CLIENT, "dss.config.client.enableTargetPassive", true, "Allow targeting passive mobs with the lock-on mechanic").getBoolean(true);
 		enableTargetPlayer = config.get(Configuration.CATEGORY_CLIENT, "dss.config.client.enableTargetPlayer", true, "Allow targeting players with the lock-on mechanic").getBoolean(true);
+		String[] overrides = config.get(Configuration.CATEGORY_CLIENT, "dss.config.client.hostilityOverrides", new String[0], "Entities to always or never treat as hostile mobs when targeting passive mobs is disabled, entered as modid:entity_name=hostile or modid:entity_name=passive, each on a separate line between the '<' and '>'").getStringList();
+		hostilityOverrides.clear();
+		for (String entry : overrides) {
+			String[] parts = entry.trim().split("=");
+			if (parts.length == 2 && ("hostile".equalsIgnoreCase(parts[1].trim()) || "passive".equalsIgnoreCase(parts[1].trim()))) {
+				hostilityOverrides.put(new ResourceLocation(parts[0].trim()), "hostile".equalsIgnoreCase(parts[1].trim()));
+			} else {
+				DynamicSwordSkills.logger.warn("Invalid hostility override entry: " + entry);
+			}
+		}
+		MobClassifier.invalidate();
 		allowVanillaControls = config.get(Configuration.CATEGORY_CLIENT, "dss.config.client.enableVanillaControls", true, "Allow vanilla movement keys to be used to activate skills; must be enabled if Additional Controls are disabled").getBoolean(true);
 		if (!enableAdditionalControls && !allowVanillaControls) {
 			DynamicSwordSkills.logger.warn("Both Vanilla and Additional Controls are disabled - Vanilla Controls were automatically enabled");
@@ -190,6 +215,10 @@ public class Config
 		bannedSkills.clear();
 		bannedSkills.addAll(Lists.<String>newArrayList(banned));
 		baseSwingSpeed = config.get("general", "dss.config.server.general.baseSwingSpeed", 0, "Base swing power (anti-left-click-spam): Sets minimal percentage of attack power required to perform an attack (0 to disable)[0-100]", 0, 100).setRequiresWorldRestart(true).getInt();
+		combatLogEnable = config.get("general", "dss.config.server.general.combatLogEnable", false, "Record skill activations, hits, damage, combo ends, parries and disarms to binary log files in logs/dss-combat for balance analysis").setRequiresWorldRestart(true).getBoolean(false);
+		combatLogFileSize = config.get("general", "dss.config.server.general.combatLogFileSize", 4, "Size of each combat log file in MiB; a new file is started when the current one is full [1-256]", 1, 256).setRequiresWorldRestart(true).getInt();
+		combatLogMaxFiles = config.get("general", "dss.config.server.general.combatLogMaxFiles", 8, "Maximum number of combat log files to keep; the oldest files are deleted first [1-1000]", 1, 1000).setRequiresWorldRestart(true).getInt();
+		packetBatching = config.get("general", "dss.config.server.general.packetBatching", false, "Send all DSS messages for each player once per tick in a single packet instead of one packet per message").getBoolean(false);
 		parryDisarmPenalty = 0.01F * (float)config.get("general", "dss.config.server.general.parryDisarmPenalty", 10, "[Parry] Penalty to disarm chance: percent per Parry level of the opponent, default negates defender's skill bonus so disarm is based entirely on timing [0-20]", 0, 20).getInt();
 		parryDisarmTimingBonus = 0.001F * (float)config.get("general", "dss.config.server.general.parryDisarmTimingBonus", 25, "[Parry] Bonus to disarm based on timing: tenths of a percent added per tick remaining on the timer [0-50]", 0, 50).getInt();
 		requireFullHealth = config.get("general", "dss.config.server.general.requireFullHealth", false, "True to require a completely full health bar to use Super Spin Attack and Sword Beam, or false to allow a small amount to be missing per level").setRequiresWorldRestart(true).getBoolean(false);
@@ -197,18 +226,44 @@ public class Config
 		skillSwordCreative = config.get("general", "dss.config.server.general.skillSwordCreative", true, "Enable Skill Swords in the Creative Tab (iron only, as examples)").setRequiresMcRestart(true).getBoolean(true);
 		skillSwordCreativeLevel = config.get("general", "dss.config.server.general.skillSwordCreativeLevel", 3, "Skill level provided by the Creative Tab Skill Swords [1-5]", 1, 5).setRequiresMcRestart(true).getInt();
 		skillSwordRandom = config.get("general", "dss.config.server.general.skillSwordRandom", true, "Enable randomized Skill Swords to add to loot or drop lists").setRequiresMcRestart(true).getBoolean(true);
+		tickBudget = config.get("general", "dss.config.server.general.tickBudget", 5, "Milliseconds per server tick that DSS may use before skipping optional work: first sounds, then frequent combo HUD updates, then spreading area of effect hits over several ticks (0 to disable) [0-50]", 0, 50).getInt();
 		/* Loot / drops settings */
 		bonusOrbEnable = config.get("drops", "dss.config.server.drops.bonusOrbEnable", false, "Whether all players should start with a Basic Skill orb").getBoolean(false);
 		orbLootWeight = config.get("drops", "dss.config.server.drops.orbLootWeight", 1, "Weight for skill orbs when added to vanilla chest loot (0 to disable) [0-100]", 0, 100).setRequiresMcRestart(true).getInt();
 		orbDropEnable = config.get("drops", "dss.config.server.drops.orbDropEnable", true, "Enable skill orbs to drop as loot from mobs (may still be disabled individually)").getBoolean(true);
 		orbDropGeneralChance = 0.01F * (float)config.get("drops", "dss.config.server.drops.orbDropGeneralChance", 1, "Chance (as a percent) for generic mobs to drop a random skill orb [0-100]", 0, 100).getInt();
 		orbDropRandomChance = 0.01F * (float)config.get("drops", "dss.config.server.drops.orbDropRandomChance", 10, "Chance (as a percent) for mobs with a specific skill orb drop to drop a random one instead [0-100]", 0, 100).getInt();
+		String[] drops = {
+				"minecraft:zombie=" + ModInfo.ID + ":basic_technique",
+				"minecraft:skeleton=" + ModInfo.ID + ":basic_technique",
+				"minecraft:stray=" + ModInfo.ID + ":basic_technique",
+				"minecraft:wither_skeleton=" + ModInfo.ID + ":basic_technique",
+				"minecraft:enderman=" + ModInfo.ID + ":dodge",
+				"minecraft:silverfish=" + ModInfo.ID + ":back_slice",
+				"minecraft:slime=" + ModInfo.ID + ":dash",
+				"minecraft:horse=" + ModInfo.ID + ":dash",
+				"minecraft:zombie_pigman=" + ModInfo.ID + ":parry",
+				"minecraft:ocelot=" + ModInfo.ID + ":mortal_draw",
+				"minecraft:spider=" + ModInfo.ID + ":ending_blow",
+				"minecraft:cave_spider=" + ModInfo.ID + ":leaping_blow",
+				"minecraft:magma_cube=" + ModInfo.ID + ":leaping_blow",
+				"minecraft:blaze=" + ModInfo.ID + ":spin_attack",
+				"minecraft:bat=" + ModInfo.ID + ":rising_cut",
+				"minecraft:creeper=" + ModInfo.ID + ":armor_break",
+				"minecraft:villager_golem=" + ModInfo.ID + ":sword_break",
+				"minecraft:ghast=" + ModInfo.ID + ":super_spin_attack",
+				"minecraft:witch=" + ModInfo.ID + ":sword_beam"
+		};
+		mobOrbDrops = config.get("drops", "dss.config.server.drops.mobOrbDrops", drops, "Specific skill orb drops for mobs, entered as modid:entity_name=modid:skill_name with an optional weight and drop chance, e.g. minecraft:zombie=dynamicswordskills:dodge,2,0.05, each on a separate line between the '<' and '>'. Entries also apply to subclasses of the entity without entries of their own. The weight defaults to 1 and the chance [0.0-1.0] defaults to the skill's orb drop chance").getStringList();
+		MobDropTable.invalidate();
 		orbDropChance = new HashMap<Integer, Float>(Skills.getSkillIdMap().size());
 		for (Entry<Integer, ResourceLocation> entry : Skills.getSkillIdMap().entrySet()) {
 			SkillBase skill = SkillRegistry.get(entry.getValue());
 			int i = config.get("drops", "dss.config.server.drops.orbDropChance." + skill.getRegistryName().getPath(), 5, "Chance (in tenths of a percent) for Skill Orb of " + skill.getDisplayName() + " to drop when available (0 to disable) [0-1000]", 0, 1000).getInt();
 			orbDropChance.put((int)skill.getId(), (0.001F * (float) i));
 		}
+		skillWeights = config.get("drops", "dss.config.server.drops.skillWeights", new String[0], "Relative weight of each skill whenever a random skill is chosen, e.g. for loot, skill swords and skill orb drops, entered as modid:skill_name=weight, each on a separate line between the '<' and '>'. Skills not listed have a weight of 1; a weight of 0 prevents the skill from being chosen at random").getStringList();
+		SkillSampler.invalidate();
 		playerDropEnable = config.get("drops", "dss.config.server.drops.playerDropEnable", true, "Enable skill orbs to drop from players when killed in PvP").getBoolean(true);
 		playerDropFactor = config.get("drops", "dss.config.server.drops.playerDropFactor", 5, "Factor by which to multiply chance for skill orb to drop by slain players [1-20]", 1, 20).getInt();
 		skillSwordLootWeight = config.get("drops", "dss.config.server.drops.skillSwordLootWeight", 1, "Weight for random skill swords when added to vanilla chest loot (0 to disable) [0-100]", 0, 100).setRequiresMcRestart(true).getInt();
@@ -262,6 +317,9 @@ public class Config
 	public static boolean autoTargetEnabled() { return enableAutoTarget; }
 	public static boolean canTargetPassiveMobs() { return enableTargetPassive; }
 	public static boolean canTargetPlayers() { return enableTargetPlayer; }
+	/** Returns true to always treat the entity type as a hostile mob, false to never do so, or null if there is no override */
+	@Nullable
+	public static Boolean getHostilityOverride(ResourceLocation entity) { return hostilityOverrides.get(entity); }
 	/* Skill GUI */
 	public static boolean clickedGroupFilterSound() { return clickedGroupFilterSound; }
 	public static boolean clickedPageSound() { return clickedPageSound; }
@@ -282,7 +340,14 @@ public class Config
 	public static boolean giveBonusOrb() { return bonusOrbEnable; }
 	public static int getOrbLootWeight() { return orbLootWeight; }
 	public static int getBaseSwingSpeed() { return baseSwingSpeed; }
+	public static boolean isCombatLogEnabled() { return combatLogEnable; }
+	/** Returns the size of each combat log file, in bytes */
+	public static int getCombatLogFileSize() { return combatLogFileSize << 20; }
+	public static int getCombatLogMaxFiles() { return combatLogMaxFiles; }
+	public static boolean isPacketBatchingEnabled() { return packetBatching; }
 	public static boolean areRandomSwordsEnabled() { return skillSwordRandom; }
+	/** Returns the DSS time budget per server tick in milliseconds, or 0 if unlimited; see {@link TickWatchdog} */
+	public static int getTickBudget() { return tickBudget; }
 	public static boolean areCreativeSwordsEnabled() { return skillSwordCreative; }
 	public static boolean canDisarmorPlayers() { return backSliceDisarmorPlayer; }
 	public static float getDisarmPenalty() { return parryDisarmPenalty; }
@@ -308,6 +373,8 @@ public class Config
 	public static boolean areOrbDropsEnabled() { return orbDropEnable; }
 	public static float getChanceForRandomDrop() { return orbDropRandomChance; }
 	public static float getRandomMobDropChance() { return orbDropGeneralChance; }
+	public static String[] getMobOrbDrops() { return mobOrbDrops; }
+	public static String[] getSkillWeights() { return skillWeights; }
 	public static float getDropChance(int orbID) {
 		return (orbDropChance.containsKey(orbID) ? orbDropChance.get(orbID) : 0.0F);
 	}
@@ -329,5 +396,6 @@ public class Config
 				Config.bannedSkills.add(skill.getRegistryName().toString());
 			}
 		}
+		SkillSampler.invalidate();
 	}
 }
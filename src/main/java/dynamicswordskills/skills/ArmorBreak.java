@@ -66,6 +66,9 @@ public class ArmorBreak extends SkillActive
 	/** Flag to allow armor break to begin charging even if mouse is over a block */
 	private boolean wasLockedOn;
 
+	/** Armor break damage source for the player, reused for each attack */
+	private DamageSource damageSource;
+
 	@SideOnly(Side.CLIENT)
 	private KeyBinding attackKey;
 
@@ -205,7 +208,10 @@ public class ArmorBreak extends SkillActive
 	@Override
 	public boolean onAttack(EntityPlayer player, EntityLivingBase entity, DamageSource source, float amount) {
 		activeTimer = 0;
-		entity.attackEntityFrom(DamageUtils.causeArmorBreakDamage(player), amount);
+		if (!DamageUtils.isSourceFor(damageSource, player, player)) {
+			damageSource = DamageUtils.causeArmorBreakDamage(player);
+		}
+		entity.attackEntityFrom(damageSource, amount);
 		if (!player.getEntityWorld().isRemote) { 
 			PlayerUtils.playSoundAtEntity(player.getEntityWorld(), player, ModSounds.ARMOR_BREAK, SoundCategory.PLAYERS, 0.4F, 0.5F);
 		}
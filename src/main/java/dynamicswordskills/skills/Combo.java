@@ -17,16 +17,14 @@
 
 package dynamicswordskills.skills;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
 import dynamicswordskills.network.PacketDispatcher;
 import dynamicswordskills.network.client.UpdateComboPacket;
+import dynamicswordskills.util.CombatLog;
+import dynamicswordskills.util.TickWatchdog;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.player.EntityPlayerMP;
-import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.network.PacketBuffer;
 import net.minecraft.util.text.TextComponentTranslation;
 import net.minecraft.world.World;
 import net.minecraftforge.fml.relauncher.Side;
@@ -42,6 +40,10 @@ import net.minecraftforge.fml.relauncher.SideOnly;
  * Each instance should be updated every tick from within its containing class' update method 
  * Determining when to add damage or end the combo prematurely must be handled extraneously.
  * Only self-synchronizing when UpdateComboPacket class is kept up-to-date 
+ * 
+ * The server sends a full snapshot when the combo starts and afterwards only the individual
+ * changes (hit, damage, finish), which the client applies to its existing instance; use
+ * {@link #getVersion()} to detect when the client instance has changed.
  *
  */
 public class Combo
@@ -61,8 +63,11 @@ public class Combo
 	/** Set to true when endCombo method is called */
 	private boolean isFinished = false;
 
-	/** List stores each hit's damage; combo size is inherent in the list */
-	private final List<Float> damageList = new ArrayList<Float>();
+	/** Damage of each hit, in order; only the first {@link #numHits} entries are used */
+	private final float[] hitDamage;
+
+	/** Current number of hits */
+	private int numHits;
 
 	/** Running total of damage inflicted during a combo */
 	private float comboDamage = 0.0F;
@@ -76,6 +81,15 @@ public class Combo
 	/** Total number of consecutive hits on the same target entity */
 	private int consecutiveHits = 0;
 
+	/** Incremented every time the combo changes */
+	private int version;
+
+	/** Damage-only amount not yet sent to the client while the {@link TickWatchdog} throttles HUD updates */
+	private float pendingDamage;
+
+	/** Ticks since the last damage-only update was sent */
+	private int ticksSinceDamageUpdate;
+
 	/**
 	 * Constructs a new Combo with specified max combo size and time limit and sends an update
 	 * packet to the client player with the new Combo instance.
@@ -85,7 +99,7 @@ public class Combo
 	public Combo(EntityPlayer player, SkillBase skill, int maxComboSize, int timeLimit) {
 		this(skill.getId(), maxComboSize, timeLimit);
 		if (player instanceof EntityPlayerMP) {
-			PacketDispatcher.sendTo(new UpdateComboPacket(this), (EntityPlayerMP) player);
+			PacketDispatcher.sendTo(UpdateComboPacket.snapshot(this), (EntityPlayerMP) player);
 		}
 	}
 
@@ -98,13 +112,14 @@ public class Combo
 		this.skillId = skillId;
 		this.maxComboSize = maxComboSize;
 		this.timeLimit = timeLimit;
+		this.hitDamage = new float[Math.max(maxComboSize, 0)];
 	}
 
 	/** Returns the skill id associated with this Combo */
 	public byte getSkillId() { return skillId; }
 
 	/** Returns current number of hits */
-	public int getNumHits() { return damageList.size(); }
+	public int getNumHits() { return numHits; }
 
 	/** Returns maximum number of hits allowed before the combo self-terminates */
 	public int getMaxNumHits() { return maxComboSize; }
@@ -112,8 +127,13 @@ public class Combo
 	/** Returns current damage total for this combo */
 	public float getDamage() { return comboDamage; }
 
-	/** Returns a copy of the current damage list */
-	public List<Float> getDamageList() { return Collections.unmodifiableList(damageList); }
+	/** Returns the damage inflicted by the hit at the given index, from 0 to {@link #getNumHits()} - 1 */
+	public float getHitDamage(int index) {
+		if (index < 0 || index >= numHits) {
+			throw new IndexOutOfBoundsException("Hit index " + index + " out of range for combo size " + numHits);
+		}
+		return hitDamage[index];
+	}
 
 	/** Returns the last entity directly hit during the combo */
 	public Entity getLastEntityHit() { return lastEntityHit; }
@@ -124,6 +144,9 @@ public class Combo
 	/** Returns true if this combo is finished, i.e. no longer active */
 	public boolean isFinished() { return isFinished; }
 
+	/** Returns a number that changes every time this combo is modified */
+	public int getVersion() { return version; }
+
 	/** Returns translated current description of combo; e.g. "Great" */
 	public String getLabel() {
 		return new TextComponentTranslation("combo.label." + Math.min(getNumHits(), 10)).getUnformattedText();
@@ -133,6 +156,10 @@ public class Combo
 	 * Updates combo timer and triggers combo ending if timer reaches zero
 	 */
 	public void onUpdate(EntityPlayer player) {
+		++ticksSinceDamageUpdate;
+		if (pendingDamage != 0.0F && (ticksSinceDamageUpdate >= TickWatchdog.HUD_INTERVAL || !TickWatchdog.throttleHud())) {
+			sendPendingDamage(player);
+		}
 		if (comboTimer > 0) {
 			--comboTimer;
 			if (comboTimer == 0) {
@@ -154,10 +181,11 @@ public class Combo
 				lastEntityHit = target;
 				consecutiveHits = (target != null ? 1 : 0);
 			}
-			damageList.add(damage);
-			comboDamage += damage;
+			appendHit(damage);
+			CombatLog.record(CombatLog.Event.HIT, player, skillId, target, damage, comboDamage, numHits);
 			if (player instanceof EntityPlayerMP) {
-				PacketDispatcher.sendTo(new UpdateComboPacket(this), (EntityPlayerMP) player);
+				sendPendingDamage(player);
+				PacketDispatcher.sendTo(UpdateComboPacket.hit(this, damage), (EntityPlayerMP) player);
 			}
 			if (getNumHits() == maxComboSize) {
 				endCombo(player);
@@ -175,31 +203,97 @@ public class Combo
 	public void addDamageOnly(EntityPlayer player, float damage) {
 		if (!isFinished()) {
 			comboDamage += damage;
+			++version;
 			if (getNumHits() == 0) {
 				comboTimer = timeLimit;
 			}
 			if (player instanceof EntityPlayerMP) {
-				PacketDispatcher.sendTo(new UpdateComboPacket(this), (EntityPlayerMP) player);
+				pendingDamage += damage;
+				if (TickWatchdog.throttleHud() && ticksSinceDamageUpdate < TickWatchdog.HUD_INTERVAL) {
+					TickWatchdog.onHudUpdateMerged();
+				} else {
+					sendPendingDamage(player);
+				}
 			}
 		}
 	}
 
+	/**
+	 * Sends any damage-only amount that has not yet been sent to the client
+	 */
+	private void sendPendingDamage(EntityPlayer player) {
+		if (pendingDamage != 0.0F && player instanceof EntityPlayerMP) {
+			PacketDispatcher.sendTo(UpdateComboPacket.damage(this, pendingDamage), (EntityPlayerMP) player);
+			ticksSinceDamageUpdate = 0;
+		}
+		pendingDamage = 0.0F;
+	}
+
 	/**
 	 * Ends the combo and notifies the client
 	 */
 	public void endCombo(EntityPlayer player) {
 		if (!isFinished) {
-			isFinished = true;
-			lastEntityHit = null;
-			consecutiveHits = 0;
+			CombatLog.record(CombatLog.Event.COMBO_END, player, skillId, lastEntityHit, comboDamage, 0.0F, numHits);
+			finish();
 			if (player instanceof EntityPlayerMP) {
-				PacketDispatcher.sendTo(new UpdateComboPacket(this), (EntityPlayerMP) player);
+				sendPendingDamage(player);
+				PacketDispatcher.sendTo(UpdateComboPacket.finish(this), (EntityPlayerMP) player);
 			}
 		}
 	}
 
+	private void appendHit(float damage) {
+		hitDamage[numHits++] = damage;
+		comboDamage += damage;
+		++version;
+	}
+
+	private void finish() {
+		isFinished = true;
+		lastEntityHit = null;
+		consecutiveHits = 0;
+		++version;
+	}
+
+	/**
+	 * Applies a hit sent from the server; see {@link #add}
+	 * @param entityId        Entity id of the last entity hit, or 0 for none
+	 * @param consecutiveHits Server's consecutive hit count after the hit
+	 */
+	@SideOnly(Side.CLIENT)
+	public void onHitReceived(World world, float damage, int entityId, int consecutiveHits) {
+		if (numHits < hitDamage.length) {
+			appendHit(damage);
+			this.entityId = entityId;
+			this.consecutiveHits = consecutiveHits;
+			getEntityFromWorld(world);
+		}
+	}
+
 	/**
-	 * Attempts to set the last entity hit after loading from NBT; use from update packet
+	 * Applies additional damage sent from the server; see {@link #addDamageOnly}
+	 */
+	@SideOnly(Side.CLIENT)
+	public void onDamageReceived(float damage) {
+		if (!isFinished) {
+			comboDamage += damage;
+			++version;
+		}
+	}
+
+	/**
+	 * Applies the end of the combo sent from the server; see {@link #endCombo}
+	 */
+	@SideOnly(Side.CLIENT)
+	public void onFinishReceived() {
+		if (!isFinished) {
+			finish();
+		}
+	}
+
+	/**
+	 * Attempts to set the last entity hit from the entity id received in an update packet
 	 */
 	@SideOnly(Side.CLIENT)
 	public void getEntityFromWorld(World world) {
@@ -207,37 +301,39 @@ public class Combo
 	}
 
 	/**
-	 * Writes this combo to NBT and returns the tag compound
+	 * Writes the full state of this combo to the buffer
 	 */
-	public final NBTTagCompound writeToNBT() {
-		NBTTagCompound compound = new NBTTagCompound();
-		compound.setByte("SkillID", skillId);
-		compound.setInteger("MaxSize", maxComboSize);
-		compound.setInteger("TimeLimit", timeLimit);
-		compound.setInteger("CurrentSize", getNumHits());
-		for (int i = 0; i < getNumHits(); ++i) {
-			compound.setFloat("Dmg" + i, damageList.get(i));
+	public final void writeSnapshot(PacketBuffer buffer) {
+		buffer.writeByte(skillId);
+		buffer.writeVarInt(maxComboSize);
+		buffer.writeVarInt(timeLimit);
+		buffer.writeVarInt(numHits);
+		for (int i = 0; i < numHits; ++i) {
+			buffer.writeFloat(hitDamage[i]);
 		}
-		compound.setFloat("TotalDamage", comboDamage);
-		compound.setInteger("EntityId", (lastEntityHit != null ? lastEntityHit.getEntityId() : 0));
-		compound.setInteger("ConsecutiveHits", consecutiveHits);
-		compound.setBoolean("Finished", isFinished);
-		return compound;
+		buffer.writeFloat(comboDamage);
+		buffer.writeInt(lastEntityHit != null ? lastEntityHit.getEntityId() : 0);
+		buffer.writeVarInt(consecutiveHits);
+		buffer.writeBoolean(isFinished);
 	}
 
 	/**
-	 * Creates a new combo from the nbt tag data
+	 * Creates a new combo from a snapshot written by {@link #writeSnapshot(PacketBuffer)}
 	 */
-	public static final Combo readFromNBT(NBTTagCompound compound) {
-		Combo combo = new Combo(compound.getByte("SkillID"), compound.getInteger("MaxSize"), compound.getInteger("TimeLimit"));
-		int size = compound.getInteger("CurrentSize");
+	public static final Combo readSnapshot(PacketBuffer buffer) {
+		Combo combo = new Combo(buffer.readByte(), buffer.readVarInt(), buffer.readVarInt());
+		int size = buffer.readVarInt();
+		if (size > combo.hitDamage.length) {
+			throw new IllegalArgumentException("Combo size " + size + " exceeds max size " + combo.hitDamage.length);
+		}
 		for (int i = 0; i < size; ++i) {
-			combo.damageList.add(compound.getFloat("Dmg" + i));
+			combo.hitDamage[i] = buffer.readFloat();
 		}
-		combo.comboDamage = compound.getFloat("TotalDamage");
-		combo.entityId = compound.getInteger("EntityId");
-		combo.consecutiveHits = compound.getInteger("ConsecutiveHits");
-		combo.isFinished = compound.getBoolean("Finished");
+		combo.numHits = size;
+		combo.comboDamage = buffer.readFloat();
+		combo.entityId = buffer.readInt();
+		combo.consecutiveHits = buffer.readVarInt();
+		combo.isFinished = buffer.readBoolean();
 		return combo;
 	}
 }
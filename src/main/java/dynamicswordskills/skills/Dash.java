@@ -19,8 +19,11 @@ package dynamicswordskills.skills;
 
 import java.util.List;
 
+import javax.annotation.Nullable;
+
 import dynamicswordskills.entity.DSSPlayerInfo;
 import dynamicswordskills.network.PacketDispatcher;
+import dynamicswordskills.network.client.DashCorrectionPacket;
 import dynamicswordskills.network.server.DashImpactPacket;
 import dynamicswordskills.ref.Config;
 import dynamicswordskills.ref.ModSounds;
@@ -59,12 +62,21 @@ import swordskillsapi.api.item.IDashItem;
  * 			inflict damage, minus 0.2F per level (down to 1 block at level 5)
  * Special: Effects that increase player speed increase the effective range, damage, and knockback.
  * 
+ * Movement and impact detection are predicted on the client, which numbers each dash and reports its
+ * starting and impact positions in {@link DashImpactPacket}. The server accepts the reported impact
+ * position when it agrees with its own to within {@link #CORRECTION_THRESHOLD}, but damage, knockback
+ * and the reach checks never exceed what the server's own positions allow. Otherwise the server sends
+ * a {@link DashCorrectionPacket}, and the client shifts by the difference between the two positions.
+ * 
  */
 public class Dash extends SkillActive
 {
 	/** Player's base movement speed */
 	public static final double BASE_MOVE = 0.10000000149011612D;
 
+	/** Maximum distance between the client's and server's positions for the client's to be accepted */
+	private static final double CORRECTION_THRESHOLD = 1.5D;
+
 	/** True when Slam is used and while the player is in motion towards the target */
 	private boolean isActive = false;
 
@@ -83,6 +95,12 @@ public class Dash extends SkillActive
 	/** Impact timer used to make player immune to damage from struck target only, vs. setting hurtResistantTime */
 	private int impactTime;
 
+	/** Sequence number of the most recent dash, counted on the client only and echoed back in any correction */
+	private byte sequence;
+
+	/** Client-side position reported to the server at the most recent impact, used to apply any correction as an offset */
+	private Vec3d impactPosition;
+
 	public Dash(String translationKey) {
 		super(translationKey);
 	}
@@ -195,6 +213,9 @@ public class Dash extends SkillActive
 	protected boolean onActivated(World world, EntityPlayer player) {
 		isActive = true;
 		activeTime = 0;
+		if (world.isRemote) {
+			++sequence;
+		}
 		player.setSprinting(true);
 		trajectory = player.getLookVec();
 		initialPosition = new Vec3d(player.posX, player.posY, player.posZ);
@@ -237,9 +258,10 @@ public class Dash extends SkillActive
 					}
 					player.addVelocity(trajectory.x * speed, -0.02D, trajectory.z * speed);
 				}
-				RayTraceResult result = TargetUtils.checkForImpact(player.getEntityWorld(), player, player, 0.5D, false);
+				RayTraceResult result = TargetUtils.checkForImpact(player.getEntityWorld(), player, player, 0.5D, false, true);
 				if (result != null || player.collidedHorizontally) {
-					PacketDispatcher.sendToServer(new DashImpactPacket(player, result));
+					PacketDispatcher.sendToServer(new DashImpactPacket(player, result, sequence, initialPosition));
+					impactPosition = player.getPositionVector();
 					player.resetCooldown(); // player effectively made an attack
 					// Force player to stop blocking upon impact
 					DSSPlayerInfo.get(player).setUseItemCooldown(getBlockCooldown());
@@ -274,13 +296,32 @@ public class Dash extends SkillActive
 	/**
 	 * Called on the server from {@link DashImpactPacket} to process the impact data from the client
 	 * @param player	Player's motionX and motionZ have been set by the packet, so the values may be used
-	 * @param mop	Null assumes a block was hit (none of the block data is needed, so it is not sent),
-	 * 				or a valid MovingObjectPosition for the entity hit
+	 * @param result	Null assumes a block was hit (none of the block data is needed, so it is not sent),
+	 * 					or a valid RayTraceResult for the entity hit
+	 * @param sequence	The client's sequence number for the dash, echoed back in any correction
+	 * @param start		Player's position on the client when the dash started
+	 * @param impact	Player's position on the client at the moment of impact
 	 */
-	public void onImpact(World world, EntityPlayer player, RayTraceResult result) {
+	public void onImpact(World world, EntityPlayer player, @Nullable RayTraceResult result, byte sequence, Vec3d start, Vec3d impact) {
+		double thresholdSq = CORRECTION_THRESHOLD * CORRECTION_THRESHOLD;
+		Vec3d origin = (initialPosition == null || start.squareDistanceTo(initialPosition) <= thresholdSq ? start : initialPosition);
+		Vec3d position = player.getPositionVector();
+		boolean corrected = true;
+		if (impact.squareDistanceTo(position) <= thresholdSq && impact.distanceTo(origin) <= getRange() + CORRECTION_THRESHOLD) {
+			position = impact;
+			corrected = false;
+		}
 		if (result != null && result.typeOfHit == RayTraceResult.Type.ENTITY) {
 			target = result.entityHit;
-			double distance = target.getDistance(initialPosition.x, initialPosition.y, initialPosition.z);
+			// Reported positions may only make the dash shorter and the contact farther than the server's own
+			double distance = target.getDistance(origin.x, origin.y, origin.z);
+			double maxDistance = distance;
+			if (initialPosition != null) {
+				double serverDistance = target.getDistance(initialPosition.x, initialPosition.y, initialPosition.z);
+				distance = Math.min(distance, serverDistance);
+				maxDistance = Math.max(maxDistance, serverDistance);
+			}
+			double contactSq = Math.max(target.getDistanceSq(position.x, position.y, position.z), player.getDistanceSq(target));
 			// Subtract hitbox modifier when comparing min distance to avoid hitting enemies right in front of the player
 			double bbMod = (target.width / 2.0F) + (player.width / 2.0F);
 			double speed = player.getAttributeMap().getAttributeInstance(SharedMonsterAttributes.MOVEMENT_SPEED).getAttributeValue();
@@ -288,7 +329,7 @@ public class Dash extends SkillActive
 			if (player.isInWater() || player.isInLava()) {
 				sf *= 0.3D;
 			}
-			if (speed > 0.075D && (distance - bbMod) > getMinDistance() && distance < (getRange() + 1.0D) && player.getDistanceSq(target) < 6.0D) {
+			if (speed > 0.075D && (distance - bbMod) > getMinDistance() && maxDistance < (getRange() + 1.0D) && contactSq < 6.0D) {
 				float dmg = (float)(sf * (float)getDamage() * distance / getRange());
 				impactTime = 5; // time player will be immune to damage from the target entity
 				target.attackEntityFrom(DamageSource.causePlayerDamage(player), dmg);
@@ -305,6 +346,22 @@ public class Dash extends SkillActive
 		DSSPlayerInfo.get(player).setUseItemCooldown(getBlockCooldown());
 		PlayerUtils.playSoundAtEntity(player.getEntityWorld(), player, ModSounds.SLAM, SoundCategory.PLAYERS, 0.4F, 0.5F);
 		setNotDashing(player);
+		if (corrected && player instanceof EntityPlayerMP) {
+			PacketDispatcher.sendTo(new DashCorrectionPacket(sequence, player), (EntityPlayerMP) player);
+		}
+	}
+
+	/**
+	 * Called on the client from {@link DashCorrectionPacket} when the server rejected the predicted impact position;
+	 * corrections for any dash other than the most recent one are ignored. The player is shifted by the difference
+	 * between the server's position and the reported one, so movement since the impact, e.g. the bounce, is kept.
+	 */
+	@SideOnly(Side.CLIENT)
+	public void onCorrection(EntityPlayer player, byte sequence, double x, double y, double z) {
+		if (sequence == this.sequence && impactPosition != null) {
+			player.setPosition(player.posX + x - impactPosition.x, player.posY + y - impactPosition.y, player.posZ + z - impactPosition.z);
+			impactPosition = null;
+		}
 	}
 
 	@Override
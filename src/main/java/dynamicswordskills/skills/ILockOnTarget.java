@@ -43,4 +43,19 @@ public interface ILockOnTarget
 	@SideOnly(Side.CLIENT)
 	public void getNextTarget(EntityPlayer player);
 
+	/**
+	 * Called on the server when the client reports a new target
+	 * @param entityId The target's entity id, or -1 for no target
+	 * @param sequence See {@link dynamicswordskills.entity.DSSPlayerInfo#getTargetSequence()}
+	 */
+	default void onTargetIdReceived(EntityPlayer player, int entityId, int sequence) {
+		setCurrentTarget(player, (entityId < 0 ? null : player.getEntityWorld().getEntityByID(entityId)));
+	}
+
+	/**
+	 * Called on the client when the server has dropped the current target on its own
+	 * @param sequence The server's most recently accepted target sequence number
+	 */
+	default void onTargetDropped(EntityPlayer player, int sequence) {}
+
 }
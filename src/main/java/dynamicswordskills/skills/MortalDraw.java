@@ -147,8 +147,9 @@ public class MortalDraw extends SkillActive
 	 * @return 0-8 or -1 if no eligible sword was found
 	 */
 	public static int getSwordSlot(EntityPlayer player) {
-		int plvl = DSSPlayerInfo.get(player).getTrueSkillLevel(Skills.mortalDraw);
-		boolean needsDummy = (DSSPlayerInfo.get(player).getTrueSkillLevel(Skills.swordBasic) < 1);
+		DSSPlayerInfo skills = DSSPlayerInfo.get(player);
+		int plvl = skills.getTrueSkillLevel(Skills.mortalDraw);
+		boolean needsDummy = (skills.getTrueSkillLevel(Skills.swordBasic) < 1);
 		for (int i = 0; i < 9; ++i) {
 			ItemStack stack = player.inventory.getStackInSlot(i);
 			if (!stack.isEmpty()
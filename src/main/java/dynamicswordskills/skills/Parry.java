@@ -24,6 +24,7 @@ import dynamicswordskills.client.DSSKeyHandler;
 import dynamicswordskills.entity.DSSPlayerInfo;
 import dynamicswordskills.ref.Config;
 import dynamicswordskills.ref.ModSounds;
+import dynamicswordskills.util.CombatLog;
 import dynamicswordskills.util.PlayerUtils;
 import dynamicswordskills.util.TargetUtils;
 import net.minecraft.client.Minecraft;
@@ -226,8 +227,10 @@ public class Parry extends SkillActive
 			if (attacksParried < getMaxParries() && parryTimer > getParryDelay() && !attacker.getHeldItemMainhand().isEmpty() && PlayerUtils.isWeapon(player.getHeldItemMainhand())) {
 				if (player.getEntityWorld().rand.nextFloat() < getDisarmChance(player, attacker)) {
 					PlayerUtils.dropHeldItem(attacker);
+					CombatLog.record(CombatLog.Event.DISARM, player, getId(), attacker, 0.0F, 0.0F, 0);
 				}
 				++attacksParried; // increment after disarm check
+				CombatLog.record(CombatLog.Event.PARRY, player, getId(), attacker, 0.0F, 0.0F, attacksParried);
 				PlayerUtils.playSoundAtEntity(player.getEntityWorld(), player, ModSounds.SWORD_STRIKE, SoundCategory.PLAYERS, 0.4F, 0.5F);
 				playMissSound = false;
 				TargetUtils.knockTargetBack(attacker, player, getKnockbackStrength());
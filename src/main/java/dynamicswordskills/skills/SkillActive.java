@@ -23,6 +23,7 @@ import dynamicswordskills.network.PacketDispatcher;
 import dynamicswordskills.network.bidirectional.ActivateSkillPacket;
 import dynamicswordskills.network.bidirectional.DeactivateSkillPacket;
 import dynamicswordskills.ref.Config;
+import dynamicswordskills.util.CombatLog;
 import dynamicswordskills.util.PlayerUtils;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.settings.KeyBinding;
@@ -214,6 +215,7 @@ public abstract class SkillActive extends SkillBase
 	public final void deactivate(EntityPlayer player) throws IllegalStateException {
 		if (isActive()) {
 			onDeactivated(player.getEntityWorld(), player);
+			DSSPlayerInfo.get(player).updateHookState();
 			if (isActive()) {
 				DynamicSwordSkills.logger.error(getDisplayName() + " is still active after onDeactivated called - this may result in SEVERE errors or even crashes!!!");
 			} else if (player.getEntityWorld().isRemote) {
@@ -254,11 +256,14 @@ public abstract class SkillActive extends SkillBase
 					PacketDispatcher.sendTo(new ActivateSkillPacket(this, wasTriggered), (EntityPlayerMP) player);
 				}
 			}
-			if (onActivated(world, player)) {
+			boolean activated = onActivated(world, player);
+			DSSPlayerInfo.get(player).markHookState();
+			if (activated) {
 				if (this instanceof IModifiableSkill) {
 					SkillActive.applyActivationSkillModifiers((SkillActive & IModifiableSkill) this, player);
 				}
 				postActivated(player);
+				CombatLog.record(CombatLog.Event.ACTIVATE, player, getId(), null, level, 0.0F, 0);
 				return true;
 			}
 		} else if (level > 0) {
@@ -17,6 +17,7 @@
 
 package dynamicswordskills.skills;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -34,6 +35,7 @@ import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.network.PacketBuffer;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.text.ITextComponent;
 import net.minecraft.util.text.TextComponentTranslation;
@@ -55,6 +57,24 @@ public abstract class SkillBase
 	/** Default maximum skill level */
 	public static final byte MAX_LEVEL = 5;
 
+	/** Bits of the level byte written by {@link #writeToBuffer} that hold the level itself */
+	private static final int LEVEL_MASK = 0x7F;
+
+	/** Flag in the level byte written by {@link #writeToBuffer} set when additional data follows */
+	private static final int HAS_DATA = 0x80;
+
+	/** Whether each skill class overrides {@link #writeAdditionalData(NBTTagCompound)}; if not, the default buffer format has nothing to write */
+	private static final ClassValue<Boolean> WRITES_NBT_DATA = new ClassValue<Boolean>() {
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			try {
+				return type.getMethod("writeAdditionalData", NBTTagCompound.class).getDeclaringClass() != SkillBase.class;
+			} catch (NoSuchMethodException e) {
+				return true;
+			}
+		}
+	};
+
 	/** Unique ResourceLocation for this skill */
 	private ResourceLocation registryName = null;
 
@@ -467,6 +487,64 @@ public abstract class SkillBase
 	 */
 	public void readAdditionalData(NBTTagCompound tag) {}
 
+	/**
+	 * Writes this skill for network synchronization: the id as a varint, then the level with
+	 * a flag bit, then any {@link #writeAdditionalData(PacketBuffer) additional data} preceded
+	 * by its length so that the receiver can skip it. NBT remains the format used for saving.
+	 */
+	public final void writeToBuffer(PacketBuffer buffer) {
+		buffer.writeVarInt(id & 0xFF);
+		int header = buffer.writerIndex();
+		buffer.writeByte(level & LEVEL_MASK);
+		buffer.writeShort(0);
+		int start = buffer.writerIndex();
+		writeAdditionalData(buffer);
+		int length = buffer.writerIndex() - start;
+		if (length == 0) {
+			buffer.writerIndex(start - 2);
+		} else {
+			buffer.setByte(header, (level & LEVEL_MASK) | HAS_DATA);
+			buffer.setShort(start - 2, length);
+		}
+	}
+
+	/**
+	 * Called from {@link #writeToBuffer} to write additional data for network synchronization, at most 32767 bytes.
+	 * By default writes the tag from {@link #writeAdditionalData(NBTTagCompound)}, if it has any data, and writes
+	 * nothing without allocating a tag when that method is not overridden; override together with
+	 * {@link #readAdditionalData(PacketBuffer)} for a more compact format.
+	 */
+	public void writeAdditionalData(PacketBuffer buffer) {
+		if (!WRITES_NBT_DATA.get(getClass())) {
+			return;
+		}
+		NBTTagCompound tag = new NBTTagCompound();
+		writeAdditionalData(tag);
+		if (!tag.hasNoTags()) {
+			buffer.writeCompoundTag(tag);
+		}
+	}
+
+	/**
+	 * Called from {@link #loadFromBuffer} to read the data written by {@link #writeAdditionalData(PacketBuffer)},
+	 * only if any was written; the buffer contains only this skill's data. By default passes the tag written by the
+	 * default {@link #writeAdditionalData(PacketBuffer)}, together with the skill's id and level, to {@link #readFromNBT}.
+	 */
+	public void readAdditionalData(PacketBuffer buffer) {
+		NBTTagCompound tag = null;
+		try {
+			tag = buffer.readCompoundTag();
+		} catch (IOException e) {
+			DynamicSwordSkills.logger.warn("Failed to read additional data for skill " + getRegistryName() + ": " + e.getMessage());
+		}
+		if (tag == null) {
+			tag = new NBTTagCompound();
+		}
+		tag.setString("id", getRegistryName().toString());
+		tag.setByte("level", level);
+		readFromNBT(tag);
+	}
+
 	/**
 	 * Creates a new skill instance of the appropriate type based on the NBT data
 	 * and calls {@link #readFromNBT(NBTTagCompound)} prior to returning it.
@@ -489,4 +567,25 @@ public abstract class SkillBase
 		}
 		return skill;
 	}
+
+	/**
+	 * Creates a new skill instance from data written by {@link #writeToBuffer(PacketBuffer)}
+	 * @return Null if the skill id is not registered, in which case the skill's data is skipped
+	 */
+	@Nullable
+	public static final SkillBase loadFromBuffer(PacketBuffer buffer) {
+		SkillBase skill = SkillRegistry.getSkillById((byte) buffer.readVarInt());
+		int header = buffer.readUnsignedByte();
+		int length = ((header & HAS_DATA) != 0 ? buffer.readUnsignedShort() : 0);
+		if (skill == null) {
+			buffer.skipBytes(length);
+			return null;
+		}
+		skill = skill.newInstance();
+		skill.level = (byte)(header & LEVEL_MASK);
+		if (length > 0) {
+			skill.readAdditionalData(new PacketBuffer(buffer.readSlice(length)));
+		}
+		return skill;
+	}
 }
@@ -31,6 +31,7 @@ import dynamicswordskills.entity.DSSPlayerInfo;
 import dynamicswordskills.entity.DirtyEntityAccessor;
 import dynamicswordskills.ref.Config;
 import dynamicswordskills.ref.ModSounds;
+import dynamicswordskills.util.EntitySnapshot;
 import dynamicswordskills.util.PlayerUtils;
 import dynamicswordskills.util.TargetUtils;
 import net.minecraft.client.Minecraft;
@@ -80,9 +81,9 @@ public class SpinAttack extends SkillActive implements IModifiableSkill, IReachA
 	@SideOnly(Side.CLIENT)
 	private boolean clockwise;
 
-	/** Entities within range upon activation so no entity targeted more than once */
+	/** Entities within range upon activation so no entity targeted more than once; struck entities are removed */
 	@SideOnly(Side.CLIENT)
-	private List<EntityLivingBase> targets;
+	private EntitySnapshot<EntityLivingBase> targets;
 
 	/** Whether flame particles should render along the sword's arc */
 	private boolean isFlaming;
@@ -251,8 +252,12 @@ public class SpinAttack extends SkillActive implements IModifiableSkill, IReachA
 		charge = 0;
 		currentSpin = 0.0F;
 		arc = 0.0F;
-		DSSPlayerInfo.get(player).setArmSwingProgress(0.0F, 0.0F);
-		IComboSkill combo = DSSPlayerInfo.get(player).getComboSkill();
+		if (world.isRemote && targets != null) {
+			targets.clear();
+		}
+		DSSPlayerInfo skills = DSSPlayerInfo.get(player);
+		skills.setArmSwingProgress(0.0F, 0.0F);
+		IComboSkill combo = skills.getComboSkill();
 		if (combo != null) {
 			combo.setComboDamageOnlyMode(false);
 		}
@@ -306,12 +311,25 @@ public class SpinAttack extends SkillActive implements IModifiableSkill, IReachA
 		return true;
 	}
 
+	/**
+	 * Strikes the remaining targets that are currently in sight, using the same tests as
+	 * {@link TargetUtils#acquireAllLookTargets} but only over the targets found when the spin started
+	 */
 	private void attackTargetsInSight(EntityPlayer player) {
-		List<EntityLivingBase> list = TargetUtils.acquireAllLookTargets(player, (int)(getRange() + 0.5F), 1.0D, getTargetSelectors());
-		for (EntityLivingBase target : list) {
-			if (targets != null && targets.contains(target)) {
+		if (targets == null || targets.size() == 0) {
+			return;
+		}
+		List<Predicate<Entity>> filters = getTargetSelectors();
+		targets.refresh();
+		TargetUtils.TargetQuery.look(player, (int)(getRange() + 0.5F), 1.0D, filters).select(targets);
+		targets.retainInCone(player.posX, player.posZ, player.rotationYaw, 60.0F, true);
+		int n = targets.retainNotOnTeam(targets.getTeamId(player.getTeam()));
+		// Walk backwards: removing a target only moves candidates at higher indices
+		for (int k = n - 1; k >= 0; --k) {
+			EntityLivingBase target = targets.getSelectedEntity(k);
+			if (EntitySelectors.NOT_SPECTATING.apply(target) && TargetUtils.isTargetValid(target, player, filters) && player.canEntityBeSeen(target)) {
 				IReachAttackSkill.multiAttack(Minecraft.getMinecraft(), target, this);
-				targets.remove(target);
+				targets.remove(targets.getSelected(k));
 			}
 		}
 	}
@@ -336,10 +354,12 @@ public class SpinAttack extends SkillActive implements IModifiableSkill, IReachA
 	private void startSpin(EntityPlayer player) {
 		++refreshed;
 		if (player.getEntityWorld().isRemote) {
-			targets = player.getEntityWorld().getEntitiesWithinAABB(EntityLivingBase.class, player.getEntityBoundingBox().grow(getRange(), 0.0D, getRange()), EntitySelectors.IS_ALIVE);
-			if (targets.contains(player)) {
-				targets.remove(player);
+			List<EntityLivingBase> list = player.getEntityWorld().getEntitiesWithinAABB(EntityLivingBase.class, player.getEntityBoundingBox().grow(getRange(), 0.0D, getRange()), EntitySelectors.IS_ALIVE);
+			list.remove(player);
+			if (targets == null) {
+				targets = new EntitySnapshot<EntityLivingBase>();
 			}
+			targets.fill(list);
 		} else {
 			PlayerUtils.playRandomizedSound(player, ModSounds.SPIN_ATTACK, SoundCategory.PLAYERS, 0.4F, 0.5F);
 			if (refreshed > 1) {
@@ -19,21 +19,29 @@ package dynamicswordskills.skills;
 
 import java.util.List;
 
+import javax.annotation.Nullable;
+
 import com.google.common.base.Predicate;
 
+import dynamicswordskills.DynamicSwordSkills;
 import dynamicswordskills.api.SkillGroup;
+import dynamicswordskills.client.LockOnPredictor;
+import dynamicswordskills.entity.DSSPlayerInfo;
 import dynamicswordskills.entity.DirtyEntityAccessor;
 import dynamicswordskills.network.PacketDispatcher;
+import dynamicswordskills.network.client.TargetDroppedPacket;
 import dynamicswordskills.network.server.EndComboPacket;
 import dynamicswordskills.network.server.TargetIdPacket;
 import dynamicswordskills.ref.Config;
 import dynamicswordskills.ref.ModSounds;
 import dynamicswordskills.util.PlayerUtils;
+import dynamicswordskills.util.TargetRing;
 import dynamicswordskills.util.TargetUtils;
 import net.minecraft.client.Minecraft;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.util.DamageSource;
 import net.minecraft.util.SoundCategory;
 import net.minecraft.util.SoundEvent;
@@ -66,9 +74,41 @@ public class SwordBasic extends SkillActive implements IComboSkill, ILockOnTarge
 	/** The current target, if any; kept synchronized between the client and server */
 	private EntityLivingBase currentTarget = null;
 
-	/** The previous target; only used client side */
-	@SideOnly(Side.CLIENT)
-	private EntityLivingBase prevTarget;
+	/** Number of ticks after which the lock-on candidate ring is considered stale */
+	private static final int TARGET_REFRESH_INTERVAL = 10;
+
+	/** Distance-sorted lock-on candidates for the current lock-on session; only used client side */
+	private final TargetRing<EntityLivingBase> targetRing = new TargetRing<EntityLivingBase>();
+
+	/** Value of the player's ticksExisted when the {@link #targetRing} was last refreshed; only used client side */
+	private int ringRefreshTick;
+
+	/** Background prediction of the next target for auto-targeting; only used client side */
+	private LockOnPredictor predictor;
+
+	/** The target most recently sent to the server; only used client side */
+	private EntityLivingBase syncedTarget;
+
+	/** Set on the client when the server drops the current target, which is then replaced as if it had been lost */
+	private boolean targetDropped;
+
+	/** Number of ticks between the server's own range and line of sight checks of the current target */
+	private static final int TARGET_VALIDATION_INTERVAL = 5;
+
+	/** Number of failed server line of sight checks in a row before the current target is dropped */
+	private static final int MAX_LOS_FAILURES = 4;
+
+	/** Consecutive failed server line of sight checks for the current target */
+	private int losFailures;
+
+	/** Entity id received from the client that could not yet be resolved on the server, or -1 */
+	private int pendingTargetId = -1;
+
+	/** Number of ticks remaining to retry resolving {@link #pendingTargetId} */
+	private int pendingTargetTicks;
+
+	/** Maximum number of ticks to retry resolving a target id received from the client */
+	private static final int MAX_PENDING_TARGET_TICKS = 10;
 
 	/** Set to a new instance each time a combo begins */
 	private Combo combo = null;
@@ -154,6 +194,12 @@ public class SwordBasic extends SkillActive implements IComboSkill, ILockOnTarge
 			combo = null;
 		}
 		currentTarget = TargetUtils.acquireLookTarget(player, getRange(), getRange(), true, getTargetSelectors());
+		// Both sides activate before any target change is exchanged, so each session starts from the same sequence
+		DSSPlayerInfo.get(player).setTargetSequence(0);
+		if (world.isRemote) {
+			syncedTarget = currentTarget;
+			targetDropped = false;
+		}
 		return true;
 	}
 
@@ -161,8 +207,15 @@ public class SwordBasic extends SkillActive implements IComboSkill, ILockOnTarge
 	protected void onDeactivated(World world, EntityPlayer player) {
 		isActive = false;
 		currentTarget = null;
+		pendingTargetId = -1;
+		losFailures = 0;
 		if (world.isRemote) {
-			prevTarget = null;
+			targetRing.clear();
+			syncedTarget = null;
+			targetDropped = false;
+			if (predictor != null) {
+				predictor.reset();
+			}
 		}
 	}
 
@@ -171,7 +224,11 @@ public class SwordBasic extends SkillActive implements IComboSkill, ILockOnTarge
 		if (isActive() && player.getEntityWorld().isRemote) {
 			if (Minecraft.getMinecraft().currentScreen != null  || !updateTargets(player)) {
 				deactivate(player);
+			} else {
+				syncCurrentTarget(player);
 			}
+		} else if (isActive()) {
+			updateServerTarget(player);
 		}
 		if (isComboInProgress()) {
 			combo.onUpdate(player);
@@ -207,6 +264,8 @@ public class SwordBasic extends SkillActive implements IComboSkill, ILockOnTarge
 
 	@Override
 	public void setCurrentTarget(EntityPlayer player, Entity entity) {
+		pendingTargetId = -1;
+		losFailures = 0;
 		if (entity instanceof EntityLivingBase) {
 			currentTarget = (EntityLivingBase) entity;
 		} else {
@@ -214,39 +273,127 @@ public class SwordBasic extends SkillActive implements IComboSkill, ILockOnTarge
 		}
 	}
 
+	@Override
+	public void onTargetIdReceived(EntityPlayer player, int entityId, int sequence) {
+		DSSPlayerInfo info = DSSPlayerInfo.get(player);
+		// Discard changes that arrive out of order; the comparison tolerates wrap-around
+		if (sequence - info.getTargetSequence() <= 0) {
+			return;
+		}
+		info.setTargetSequence(sequence);
+		if (entityId < 0) {
+			// Lost without a replacement; stay active, as the client deactivates the skill separately if it finds none
+			currentTarget = null;
+			pendingTargetId = -1;
+			losFailures = 0;
+			return;
+		}
+		Entity entity = player.getEntityWorld().getEntityByID(entityId);
+		if (entity != null) {
+			setCurrentTarget(player, entity);
+		} else {
+			// Entity may not be tracked on the server yet; keep retrying quietly for a few ticks
+			pendingTargetId = entityId;
+			pendingTargetTicks = MAX_PENDING_TARGET_TICKS;
+		}
+	}
+
+	@Override
+	public void onTargetDropped(EntityPlayer player, int sequence) {
+		// Ignore if the client has since chosen a target the server has not seen yet
+		if (isActive && currentTarget == syncedTarget && sequence == DSSPlayerInfo.get(player).getTargetSequence()) {
+			targetDropped = true;
+		}
+	}
+
+	/**
+	 * Server side only: resolves any pending target id and drops the current target once it is
+	 * clearly no longer valid, without waiting for the client to say so. The checks are looser
+	 * than the client's so that the server rarely drops a target the client still considers valid;
+	 * when it does, the client is told so that both sides agree again.
+	 */
+	private void updateServerTarget(EntityPlayer player) {
+		if (pendingTargetId >= 0) {
+			Entity entity = player.getEntityWorld().getEntityByID(pendingTargetId);
+			if (entity != null) {
+				setCurrentTarget(player, entity);
+			} else if (--pendingTargetTicks <= 0) {
+				DynamicSwordSkills.logger.warn("Invalid target; entity with id " + pendingTargetId + " is null");
+				pendingTargetId = -1;
+			}
+		}
+		if (currentTarget == null) {
+			return;
+		} else if (currentTarget.isDead || currentTarget.getHealth() <= 0.0F) {
+			dropServerTarget(player);
+		} else if (player.ticksExisted % TARGET_VALIDATION_INTERVAL == 0) {
+			double range = getRange() + 2.0D;
+			if (player.getDistanceSq(currentTarget) > range * range) {
+				dropServerTarget(player);
+			} else if (TargetUtils.canSeeTarget(player, currentTarget)) {
+				losFailures = 0;
+			} else if (++losFailures >= MAX_LOS_FAILURES) {
+				dropServerTarget(player);
+			}
+		}
+	}
+
 	/**
-	 * Returns the next closest new target or locks on to the previous target, if any
+	 * Server side only: clears the current target and tells the client, which then replaces it
+	 */
+	private void dropServerTarget(EntityPlayer player) {
+		currentTarget = null;
+		losFailures = 0;
+		PacketDispatcher.sendTo(new TargetDroppedPacket(DSSPlayerInfo.get(player).getTargetSequence()), (EntityPlayerMP) player);
+	}
+
+	/**
+	 * Cycles to the next valid target in order of distance, wrapping back around to the nearest.
+	 * The candidate ring is only rebuilt here, and only if it is missing or stale.
+	 * The server is notified at the end of the tick, and only if the target actually changed.
 	 */
 	@Override
 	@SideOnly(Side.CLIENT)
 	public final void getNextTarget(EntityPlayer player) {
-		EntityLivingBase nextTarget = null;
-		double dTarget = 0;
-		List<EntityLivingBase> list = TargetUtils.acquireAllLookTargets(player, getRange(), getRange(), getTargetSelectors());
-		for (EntityLivingBase entity : list) {
-			if (entity == player) { continue; }
-			if (entity != currentTarget && entity != prevTarget && isTargetValid(player, entity)) {
-				if (nextTarget == null) {
-					dTarget = player.getDistanceSq(entity);
-					nextTarget = entity;
-				} else {
-					double distance = player.getDistanceSq(entity);
-					if (distance < dTarget) {
-						nextTarget = entity;
-						dTarget = distance;
-					}
-				}
-			}
+		if (!targetRing.isPopulated() || player.ticksExisted - ringRefreshTick >= TARGET_REFRESH_INTERVAL) {
+			refreshTargetRing(player);
 		}
+		selectNextTarget(player, currentTarget);
+	}
+
+	/**
+	 * Sets the current target to the next valid candidate in the ring after the given entity, if there is one
+	 */
+	@SideOnly(Side.CLIENT)
+	private void selectNextTarget(EntityPlayer player, @Nullable EntityLivingBase after) {
+		EntityLivingBase nextTarget = targetRing.next(after, (entity) -> isTargetValid(player, entity));
 		if (nextTarget != null) {
-			prevTarget = currentTarget;
 			currentTarget = nextTarget;
-		} else {
-			nextTarget = currentTarget;
-			currentTarget = prevTarget;
-			prevTarget = nextTarget;
 		}
-		PacketDispatcher.sendToServer(new TargetIdPacket(this));
+	}
+
+	/**
+	 * Sends the current target, or its loss, to the server if it differs from the one last sent.
+	 * Called once per tick so that several changes in the same tick result in a single packet.
+	 */
+	@SideOnly(Side.CLIENT)
+	private void syncCurrentTarget(EntityPlayer player) {
+		if (currentTarget != syncedTarget) {
+			syncedTarget = currentTarget;
+			DSSPlayerInfo info = DSSPlayerInfo.get(player);
+			info.setTargetSequence(info.getTargetSequence() + 1);
+			PacketDispatcher.sendToServer(new TargetIdPacket(this, info.getTargetSequence()));
+		}
+	}
+
+	/**
+	 * Rebuilds the lock-on candidate ring from the entities currently in view
+	 */
+	@SideOnly(Side.CLIENT)
+	private void refreshTargetRing(EntityPlayer player) {
+		List<EntityLivingBase> list = TargetUtils.acquireAllLookTargets(player, getRange(), getRange(), getTargetSelectors());
+		targetRing.refresh(player, list, currentTarget);
+		ringRefreshTick = player.ticksExisted;
 	}
 
 	/**
@@ -269,14 +416,25 @@ public class SwordBasic extends SkillActive implements IComboSkill, ILockOnTarge
 	 */
 	@SideOnly(Side.CLIENT)
 	private boolean updateTargets(EntityPlayer player) {
-		if (!isTargetValid(player, prevTarget) || !TargetUtils.isTargetInSight(player, prevTarget)) {
-			prevTarget = null;
-		}
-		if (!isTargetValid(player, currentTarget) || !player.canEntityBeSeen(currentTarget)) {
+		if (targetDropped || !isTargetValid(player, currentTarget) || !TargetUtils.canSeeTarget(player, currentTarget)) {
+			targetDropped = false;
+			EntityLivingBase lostTarget = currentTarget;
 			currentTarget = null;
 			if (Config.autoTargetEnabled()) {
-				getNextTarget(player);
+				EntityLivingBase predicted = (predictor == null ? null : predictor.consume(player, (entity) -> entity != lostTarget && isTargetValid(player, entity) && TargetUtils.canSeeTarget(player, entity)));
+				if (predicted != null) {
+					currentTarget = predicted;
+				} else {
+					// No usable prediction yet: fall back to a full look query so that every candidate passes its sight checks
+					refreshTargetRing(player);
+					selectNextTarget(player, lostTarget);
+				}
+			}
+		} else if (Config.autoTargetEnabled()) {
+			if (predictor == null) {
+				predictor = new LockOnPredictor();
 			}
+			predictor.update(player, currentTarget, getRange(), this::getTargetSelectors);
 		}
 		return isTargetValid(player, currentTarget);
 	}
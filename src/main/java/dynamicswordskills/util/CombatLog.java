@@ -0,0 +1,315 @@
+/**
+    Copyright (C) <2017> <coolAlias>
+
+    This file is part of coolAlias' Dynamic Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package dynamicswordskills.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.annotation.Nullable;
+
+import dynamicswordskills.DynamicSwordSkills;
+import dynamicswordskills.ref.Config;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.EntityPlayer;
+
+/**
+ *
+ * Optional recorder of server-side combat events for balance analysis, enabled by {@link Config#isCombatLogEnabled()}.
+ *
+ * Each event is a fixed-size record placed in a lock-free bounded ring buffer; a background thread
+ * drains the buffer into memory-mapped files, starting a new file whenever the current one is full
+ * and deleting the oldest files beyond {@link Config#getCombatLogMaxFiles()}. Recording an event never
+ * blocks or allocates: if the buffer is full, the event is counted as dropped instead.
+ *
+ * File layout (big-endian): a {@value #HEADER_SIZE} byte header of magic, format version, record size
+ * and the time the file was started in epoch milliseconds, followed by {@value #RECORD_SIZE} byte records:
+ * world time (long), event (byte), skill id (byte), dimension (short), player entity id (int),
+ * target entity id (int), value1 (float), value2 (float) and extra (int). Unused space is zero-filled,
+ * so the first record with event {@link Event#NONE} marks the end of the data.
+ *
+ * Use {@link CombatLogReader} to convert log files to CSV.
+ *
+ */
+public class CombatLog
+{
+	/** Recorded event types; the ordinal is stored in each record, so only append new values */
+	public static enum Event {
+		/** Marks unused space at the end of a file */
+		NONE,
+		/** Skill activated; value1 is the skill level */
+		ACTIVATE,
+		/** Combo hit; value1 is the hit damage, value2 the combo damage so far, extra the combo size */
+		HIT,
+		/** Damage passed through a skill's onImpact; value1 is the amount before, value2 the amount after */
+		IMPACT,
+		/** Combo ended; value1 is the total damage, extra the combo size */
+		COMBO_END,
+		/** Attack parried; the target is the attacker, extra the number of attacks parried so far */
+		PARRY,
+		/** Attacker disarmed by a parry; the target is the attacker */
+		DISARM;
+
+		private static final Event[] VALUES = values();
+
+		/** Returns the event for the stored value, or null if the value is unknown */
+		@Nullable
+		public static Event byId(int id) {
+			return (id >= 0 && id < VALUES.length ? VALUES[id] : null);
+		}
+	}
+
+	/** Identifies combat log files: 'DSSC' */
+	public static final int MAGIC = 0x44535343;
+
+	public static final short VERSION = 1;
+
+	public static final int HEADER_SIZE = 16;
+
+	public static final int RECORD_SIZE = 32;
+
+	public static final String FILE_EXTENSION = ".dsslog";
+
+	/** Number of records the ring buffer can hold; must be a power of two */
+	private static final int CAPACITY = 8192;
+
+	/** Each record is stored in the ring buffer as this many longs, matching the file layout */
+	private static final int LONGS_PER_RECORD = RECORD_SIZE / 8;
+
+	/** How long the writer thread sleeps when there is nothing to write */
+	private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+	/** The running recorder, or null if recording is disabled */
+	private static volatile CombatLog active;
+
+	private final long[] data = new long[CAPACITY * LONGS_PER_RECORD];
+
+	/** Per-slot sequence numbers: equal to the claiming position when free, that position + 1 when published */
+	private final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+
+	/** Next position to be claimed by a producer */
+	private final AtomicLong tail = new AtomicLong();
+
+	/** Next position to be read; only accessed by the writer thread */
+	private long head;
+
+	private final AtomicLong dropped = new AtomicLong();
+
+	private final File directory;
+	private final int fileSize;
+	private final int maxFiles;
+	private final Thread writer;
+	private volatile boolean running = true;
+
+	/** Current file and its mapping, or null if none is open */
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	private int fileIndex;
+
+	private CombatLog(File directory, int fileSize, int maxFiles) {
+		this.directory = directory;
+		this.fileSize = Math.max(fileSize, HEADER_SIZE + RECORD_SIZE);
+		this.maxFiles = maxFiles;
+		for (int i = 0; i < CAPACITY; ++i) {
+			sequences.set(i, i);
+		}
+		this.writer = new Thread(this::run, "DSS Combat Log");
+		this.writer.setDaemon(true);
+	}
+
+	/**
+	 * Starts recording to files in the directory if enabled in the config; call when the server starts
+	 */
+	public static synchronized void start(File directory) {
+		stop();
+		if (Config.isCombatLogEnabled()) {
+			if (!directory.isDirectory() && !directory.mkdirs()) {
+				DynamicSwordSkills.logger.error("Unable to create combat log directory " + directory);
+				return;
+			}
+			CombatLog log = new CombatLog(directory, Config.getCombatLogFileSize(), Config.getCombatLogMaxFiles());
+			log.writer.start();
+			active = log;
+			DynamicSwordSkills.logger.info("Recording combat events to " + directory);
+		}
+	}
+
+	/**
+	 * Stops recording and writes any remaining events; call when the server stops
+	 */
+	public static synchronized void stop() {
+		CombatLog log = active;
+		if (log != null) {
+			active = null;
+			log.running = false;
+			LockSupport.unpark(log.writer);
+			try {
+				log.writer.join(TimeUnit.SECONDS.toMillis(5));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (log.dropped.get() > 0) {
+				DynamicSwordSkills.logger.warn(log.dropped.get() + " combat log events were dropped because the buffer was full");
+			}
+		}
+	}
+
+	/** Returns true if events are currently being recorded */
+	public static boolean isRecording() {
+		return active != null;
+	}
+
+	/**
+	 * Records an event if recording is enabled; has no effect for client side players
+	 * @param skillId Id of the skill responsible, or -1 if none
+	 * @param target  Entity affected by the event, if any
+	 */
+	public static void record(Event event, EntityPlayer player, int skillId, @Nullable Entity target, float value1, float value2, int extra) {
+		CombatLog log = active;
+		if (log != null && !player.getEntityWorld().isRemote) {
+			long time = player.getEntityWorld().getTotalWorldTime();
+			int targetId = (target == null ? -1 : target.getEntityId());
+			log.offer(time, event, skillId, player.dimension, player.getEntityId(), targetId, value1, value2, extra);
+		}
+	}
+
+	/**
+	 * Claims a slot and writes the record into it; lock-free for any number of producer threads
+	 */
+	private void offer(long time, Event event, int skillId, int dimension, int playerId, int targetId, float value1, float value2, int extra) {
+		long pos = tail.get();
+		int slot;
+		for (;;) {
+			slot = (int) pos & (CAPACITY - 1);
+			long diff = sequences.get(slot) - pos;
+			if (diff == 0) {
+				if (tail.compareAndSet(pos, pos + 1)) {
+					break;
+				}
+				pos = tail.get();
+			} else if (diff < 0) {
+				dropped.incrementAndGet();
+				return;
+			} else {
+				pos = tail.get();
+			}
+		}
+		int i = slot * LONGS_PER_RECORD;
+		data[i] = time;
+		data[i + 1] = ((long) event.ordinal() << 56) | ((long) (skillId & 0xFF) << 48) | ((long) (dimension & 0xFFFF) << 32) | (playerId & 0xFFFFFFFFL);
+		data[i + 2] = ((long) targetId << 32) | (Float.floatToRawIntBits(value1) & 0xFFFFFFFFL);
+		data[i + 3] = ((long) Float.floatToRawIntBits(value2) << 32) | (extra & 0xFFFFFFFFL);
+		sequences.lazySet(slot, pos + 1);
+	}
+
+	/** Writer thread loop */
+	private void run() {
+		try {
+			while (running) {
+				if (drain() == 0) {
+					LockSupport.parkNanos(this, IDLE_NANOS);
+				}
+			}
+			drain();
+		} catch (IOException e) {
+			DynamicSwordSkills.logger.error("Combat log stopped after failing to write to " + directory, e);
+			active = null;
+		} finally {
+			closeFile();
+		}
+	}
+
+	/**
+	 * Writes all published records to the current file, rolling over to a new file as needed
+	 * @return the number of records written
+	 */
+	private int drain() throws IOException {
+		int count = 0;
+		for (;;) {
+			int slot = (int) head & (CAPACITY - 1);
+			if (sequences.get(slot) != head + 1) {
+				break;
+			}
+			if (buffer == null || buffer.remaining() < RECORD_SIZE) {
+				openNextFile();
+			}
+			int i = slot * LONGS_PER_RECORD;
+			buffer.putLong(data[i]);
+			buffer.putLong(data[i + 1]);
+			buffer.putLong(data[i + 2]);
+			buffer.putLong(data[i + 3]);
+			sequences.lazySet(slot, head + CAPACITY);
+			++head;
+			++count;
+		}
+		return count;
+	}
+
+	private void openNextFile() throws IOException {
+		closeFile();
+		String name = String.format("combat-%s-%04d%s", new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()), fileIndex++, FILE_EXTENSION);
+		File file = new File(directory, name);
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+		buffer.putInt(MAGIC);
+		buffer.putShort(VERSION);
+		buffer.putShort((short) RECORD_SIZE);
+		buffer.putLong(System.currentTimeMillis());
+		// Only whole records fit in the remaining space
+		buffer.limit(HEADER_SIZE + ((fileSize - HEADER_SIZE) / RECORD_SIZE) * RECORD_SIZE);
+		deleteOldFiles();
+	}
+
+	private void closeFile() {
+		if (buffer != null) {
+			buffer.force();
+			buffer = null;
+		}
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				DynamicSwordSkills.logger.warn("Failed to close combat log file", e);
+			}
+			channel = null;
+		}
+	}
+
+	/** Deletes the oldest log files so that at most {@link #maxFiles} remain */
+	private void deleteOldFiles() {
+		File[] files = directory.listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+		if (files != null && files.length > maxFiles) {
+			// File names start with the creation time, so name order is age order
+			Arrays.sort(files);
+			for (int i = 0; i < files.length - maxFiles; ++i) {
+				if (!files[i].delete()) {
+					DynamicSwordSkills.logger.warn("Failed to delete old combat log file " + files[i]);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,119 @@
+/**
+    Copyright (C) <2017> <coolAlias>
+
+    This file is part of coolAlias' Dynamic Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package dynamicswordskills.util;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import dynamicswordskills.util.CombatLog.Event;
+
+/**
+ *
+ * Offline converter from {@link CombatLog} files to CSV, e.g.:
+ * <pre>java -cp dynamicswordskills.jar dynamicswordskills.util.CombatLogReader logs/dss-combat &gt; combat.csv</pre>
+ *
+ * Uses only the log format constants and {@link Event}, so no Minecraft classes are needed on the class path.
+ *
+ */
+public class CombatLogReader
+{
+	public static final String CSV_HEADER = "file_start_ms,world_time,event,skill_id,dimension,player_id,target_id,value1,value2,extra";
+
+	/**
+	 * Converts each log file, or every log file in each directory, to CSV on standard output
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			System.err.println("Usage: CombatLogReader <log file or directory>...");
+			System.exit(1);
+		}
+		List<File> files = new ArrayList<File>();
+		for (String arg : args) {
+			File file = new File(arg);
+			if (file.isDirectory()) {
+				File[] children = file.listFiles((dir, name) -> name.endsWith(CombatLog.FILE_EXTENSION));
+				if (children != null) {
+					Arrays.sort(children);
+					files.addAll(Arrays.asList(children));
+				}
+			} else {
+				files.add(file);
+			}
+		}
+		Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+		out.write(CSV_HEADER);
+		out.write('\n');
+		for (File file : files) {
+			writeCsv(file, out);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Writes one CSV line, without a header, for each record in the log file
+	 * @return the number of records written
+	 */
+	public static int writeCsv(File file, Writer out) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < CombatLog.HEADER_SIZE || buffer.getInt() != CombatLog.MAGIC) {
+				throw new IOException("Not a combat log file: " + file);
+			}
+			short version = buffer.getShort();
+			int recordSize = buffer.getShort();
+			if (version != CombatLog.VERSION || recordSize != CombatLog.RECORD_SIZE) {
+				throw new IOException("Unsupported combat log version " + version + " with record size " + recordSize + ": " + file);
+			}
+			long start = buffer.getLong();
+			int count = 0;
+			StringBuilder sb = new StringBuilder(96);
+			while (buffer.remaining() >= CombatLog.RECORD_SIZE) {
+				long time = buffer.getLong();
+				int type = buffer.get() & 0xFF;
+				int skillId = buffer.get();
+				short dimension = buffer.getShort();
+				int playerId = buffer.getInt();
+				int targetId = buffer.getInt();
+				float value1 = buffer.getFloat();
+				float value2 = buffer.getFloat();
+				int extra = buffer.getInt();
+				Event event = Event.byId(type);
+				if (event == Event.NONE) {
+					break; // end of the written data
+				}
+				sb.setLength(0);
+				sb.append(start).append(',').append(time).append(',').append(event == null ? String.valueOf(type) : event.name())
+				.append(',').append(skillId).append(',').append(dimension).append(',').append(playerId).append(',').append(targetId)
+				.append(',').append(value1).append(',').append(value2).append(',').append(extra).append('\n');
+				out.append(sb);
+				++count;
+			}
+			return count;
+		}
+	}
+}
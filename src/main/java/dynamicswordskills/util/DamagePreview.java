@@ -0,0 +1,107 @@
+/**
+    Copyright (C) <2017> <coolAlias>
+
+    This file is part of coolAlias' Dynamic Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package dynamicswordskills.util;
+
+import java.lang.ref.WeakReference;
+
+import dynamicswordskills.entity.DirtyEntityAccessor;
+import net.minecraft.entity.EntityLivingBase;
+import net.minecraft.entity.SharedMonsterAttributes;
+import net.minecraft.entity.ai.attributes.IAttributeInstance;
+import net.minecraft.util.CombatRules;
+import net.minecraft.util.DamageSource;
+
+/**
+ *
+ * Predicts how much health an entity would lose from a hit without applying the hit or damaging any armor.
+ *
+ * Mirrors {@code EntityLivingBase#damageEntity}: armor and armor toughness via {@link CombatRules}
+ * unless the source is unblockable, then resistance and protection enchantments via the entity's own
+ * {@code applyPotionDamageCalculations}, and finally absorption. Forge ISpecialArmor is not consulted.
+ *
+ * Results are memoized per thread for the current world tick, keyed by target, damage type, every source flag
+ * that armor, enchantments or potions may check, and amount, since several handlers often preview the same hit.
+ * Targets are held weakly so that the memo never keeps an entity loaded.
+ *
+ */
+public class DamagePreview
+{
+	/** Number of memoized results per thread; must be a power of two */
+	private static final int CACHE_SIZE = 8;
+
+	private static final ThreadLocal<DamagePreview> CACHE = ThreadLocal.withInitial(DamagePreview::new);
+
+	@SuppressWarnings("unchecked")
+	private final WeakReference<EntityLivingBase>[] targets = new WeakReference[CACHE_SIZE];
+	private final String[] types = new String[CACHE_SIZE];
+	private final int[] flags = new int[CACHE_SIZE];
+	private final float[] amounts = new float[CACHE_SIZE];
+	private final long[] ticks = new long[CACHE_SIZE];
+	private final float[] results = new float[CACHE_SIZE];
+
+	private DamagePreview() {}
+
+	/**
+	 * Returns the amount of health the entity would lose if struck by the source for the given amount,
+	 * after armor, potions, enchantments and absorption are taken into account
+	 */
+	public static float getModifiedDamage(EntityLivingBase entity, DamageSource source, float amount) {
+		return CACHE.get().lookup(entity, source, amount);
+	}
+
+	private float lookup(EntityLivingBase entity, DamageSource source, float amount) {
+		String type = source.getDamageType();
+		int flag = getFlags(source);
+		long tick = entity.getEntityWorld().getTotalWorldTime();
+		int slot = (System.identityHashCode(entity) ^ type.hashCode() ^ Float.floatToIntBits(amount) ^ flag) & (CACHE_SIZE - 1);
+		if (targets[slot] != null && targets[slot].get() == entity && ticks[slot] == tick && flags[slot] == flag && amounts[slot] == amount && type.equals(types[slot])) {
+			return results[slot];
+		}
+		float result = compute(entity, source, amount);
+		targets[slot] = new WeakReference<EntityLivingBase>(entity);
+		types[slot] = type;
+		flags[slot] = flag;
+		amounts[slot] = amount;
+		ticks[slot] = tick;
+		results[slot] = result;
+		return result;
+	}
+
+	/**
+	 * Packs every flag of the source that may change the result, e.g. protection enchantments check the
+	 * projectile, fire and explosion flags and witches resist magic damage
+	 */
+	private static int getFlags(DamageSource source) {
+		return (source.isUnblockable() ? 1 : 0)
+				| (source.isDamageAbsolute() ? 2 : 0)
+				| (source.isProjectile() ? 4 : 0)
+				| (source.isFireDamage() ? 8 : 0)
+				| (source.isExplosion() ? 16 : 0)
+				| (source.isMagicDamage() ? 32 : 0)
+				| (source.canHarmInCreative() ? 64 : 0);
+	}
+
+	private static float compute(EntityLivingBase entity, DamageSource source, float amount) {
+		if (!source.isUnblockable()) {
+			IAttributeInstance toughness = entity.getEntityAttribute(SharedMonsterAttributes.ARMOR_TOUGHNESS);
+			amount = CombatRules.getDamageAfterAbsorb(amount, (float) entity.getTotalArmorValue(), (toughness == null ? 0.0F : (float) toughness.getAttributeValue()));
+		}
+		amount = DirtyEntityAccessor.applyPotionDamageCalculations(entity, source, amount);
+		return Math.max(amount - entity.getAbsorptionAmount(), 0.0F);
+	}
+}
@@ -17,6 +17,8 @@
 
 package dynamicswordskills.util;
 
+import javax.annotation.Nullable;
+
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.util.DamageSource;
@@ -28,6 +30,10 @@ import swordskillsapi.api.damage.IComboDamage.IComboDamageFull;
 /**
  * 
  * A collection of methods and classes related to damage, such as new DamageSource types
+ * 
+ * The sources created here are never modified after creation, so the same instance may safely be
+ * reused for every hit by the same pair of entities, even from within a nested damage event;
+ * see {@link #isSourceFor(DamageSource, Entity, Entity)}.
  *
  */
 public class DamageUtils
@@ -38,6 +44,16 @@ public class DamageUtils
 	/** Indirect damage caused by sword skills such as Leaping Blow */
 	INDIRECT_SWORD = "indirectSword";
 
+	/**
+	 * Returns true if the source is non-null and was created for the given immediate and true source entities,
+	 * in which case it may be reused instead of creating a new one for each hit
+	 * @param direct   entity directly responsible for the damage, i.e. {@link DamageSource#getImmediateSource()}
+	 * @param indirect entity ultimately responsible for the damage, i.e. {@link DamageSource#getTrueSource()}
+	 */
+	public static boolean isSourceFor(@Nullable DamageSource source, @Nullable Entity direct, @Nullable Entity indirect) {
+		return source != null && source.getImmediateSource() == direct && source.getTrueSource() == indirect;
+	}
+
 	/**
 	 * Returns an armor-bypassing physical DamageSource
 	 */
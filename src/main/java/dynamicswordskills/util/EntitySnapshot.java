@@ -0,0 +1,592 @@
+/**
+    Copyright (C) <2017> <coolAlias>
+
+    This file is part of coolAlias' Dynamic Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package dynamicswordskills.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.scoreboard.Team;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.MathHelper;
+
+/**
+ *
+ * Structure-of-arrays copy of a set of candidate entities, taken once and then tested
+ * against many geometric queries without dereferencing the entities themselves.
+ *
+ * Only ids, positions and bounding boxes are copied up front. Team ids and flags are read from the
+ * entities the first time they are needed, and candidates are binned into a uniform horizontal grid
+ * the first time {@link #selectNear} is called, so that a query only visits the candidates near its
+ * own bounds rather than every entity in the snapshot.
+ *
+ * Bulk tests work on an internal selection of candidate indices: start one with {@link #selectAll(int)}
+ * or {@link #selectNear}, narrow it with the retain methods, then read the results with {@link #getSelected(int)}.
+ * Each test runs as a flat loop over the primitive arrays and keeps the selection in snapshot order.
+ * Call {@link #clear()} once done so the snapshot does not keep entities alive.
+ *
+ */
+public class EntitySnapshot<T extends Entity>
+{
+	/** Edge length of a grid cell, in blocks */
+	private static final double CELL_SIZE = 8.0D;
+
+	/** Upper bound on the number of grid cells along each axis */
+	private static final int MAX_CELLS_PER_AXIS = 64;
+
+	private int size;
+	private Entity[] entities = new Entity[32];
+	private int[] ids = new int[32];
+	private double[] xs = new double[32];
+	private double[] ys = new double[32];
+	private double[] zs = new double[32];
+	private double[] minXs = new double[32];
+	private double[] minYs = new double[32];
+	private double[] minZs = new double[32];
+	private double[] maxXs = new double[32];
+	private double[] maxYs = new double[32];
+	private double[] maxZs = new double[32];
+	/** Index into {@link #teams} plus one, or 0 for entities not on a team */
+	private int[] teamIds = new int[32];
+	/** Bit field of {@link #ALIVE}, {@link #VISIBLE} and {@link #COLLIDABLE} */
+	private byte[] flags = new byte[32];
+
+	/** Flag for entities that are alive, e.g. not dead and with health remaining */
+	public static final int ALIVE = 1;
+	/** Flag for entities that are not invisible */
+	public static final int VISIBLE = 2;
+	/** Flag for entities that can be collided with */
+	public static final int COLLIDABLE = 4;
+
+	/** Distinct teams in the snapshot; team ids are indices into this list plus one */
+	private final List<Team> teams = new ArrayList<Team>();
+
+	/** True if team ids and flags have yet to be read from the entities */
+	private boolean attributesPending;
+
+	/** True if the grid must be rebuilt before it is next used */
+	private boolean gridPending;
+
+	/** Current selection of candidate indices */
+	private int[] selection = new int[32];
+	private int selectionSize;
+
+	/** Values computed for the current selection by the bulk tests, paired with {@link #selection} */
+	private double[] scratch = new double[32];
+
+	private double gridMinX;
+	private double gridMinZ;
+	private double cellSize = CELL_SIZE;
+	private int gridWidth;
+	private int gridDepth;
+	/** Start index in {@link #cellItems} for each cell, plus one trailing entry holding the total */
+	private int[] cellStart = new int[1];
+	/** Snapshot indices ordered by cell */
+	private int[] cellItems = new int[32];
+
+	/** Returns the number of candidates in the snapshot */
+	public int size() {
+		return size;
+	}
+
+	/** Returns the candidate's entity; may be null for synthetic candidates */
+	@SuppressWarnings("unchecked")
+	public T getEntity(int i) {
+		return (T) entities[i];
+	}
+
+	public int getEntityId(int i) {
+		return ids[i];
+	}
+
+	public double getX(int i) {
+		return xs[i];
+	}
+
+	public double getY(int i) {
+		return ys[i];
+	}
+
+	public double getZ(int i) {
+		return zs[i];
+	}
+
+	public double getMinX(int i) {
+		return minXs[i];
+	}
+
+	public double getMinY(int i) {
+		return minYs[i];
+	}
+
+	public double getMinZ(int i) {
+		return minZs[i];
+	}
+
+	public double getMaxX(int i) {
+		return maxXs[i];
+	}
+
+	public double getMaxY(int i) {
+		return maxYs[i];
+	}
+
+	public double getMaxZ(int i) {
+		return maxZs[i];
+	}
+
+	/** Same test as {@link AxisAlignedBB#intersects} between the candidate's bounding box and the given box */
+	public boolean intersects(int i, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+		return minXs[i] < maxX && maxXs[i] > minX && minYs[i] < maxY && maxYs[i] > minY && minZs[i] < maxZ && maxZs[i] > minZ;
+	}
+
+	public int getTeamId(int i) {
+		ensureAttributes();
+		return teamIds[i];
+	}
+
+	public boolean hasFlags(int i, int required) {
+		ensureAttributes();
+		return (flags[i] & required) == required;
+	}
+
+	/**
+	 * Returns the team id used in this snapshot for the team, or 0 if the team is null or has no members in the snapshot
+	 */
+	public int getTeamId(@Nullable Team team) {
+		ensureAttributes();
+		return (team == null ? 0 : teams.indexOf(team) + 1);
+	}
+
+	/**
+	 * Replaces the contents of the snapshot with the given entities
+	 */
+	public void fill(List<? extends T> list) {
+		clear();
+		ensureCapacity(list.size());
+		for (int i = 0; i < list.size(); ++i) {
+			T entity = list.get(i);
+			AxisAlignedBB bb = entity.getEntityBoundingBox();
+			add(entity, entity.getEntityId(), entity.posX, entity.posY, entity.posZ, bb.minX, bb.minY, bb.minZ, bb.maxX, bb.maxY, bb.maxZ);
+		}
+		attributesPending = true;
+		build();
+	}
+
+	/**
+	 * Copies the current positions and bounding boxes of the candidates' entities again, e.g. when the same
+	 * candidates are tested over several frames; team ids and flags are read again when next needed.
+	 * Candidates without an entity are left as they are.
+	 */
+	public void refresh() {
+		for (int i = 0; i < size; ++i) {
+			Entity entity = entities[i];
+			if (entity != null) {
+				AxisAlignedBB bb = entity.getEntityBoundingBox();
+				xs[i] = entity.posX;
+				ys[i] = entity.posY;
+				zs[i] = entity.posZ;
+				minXs[i] = bb.minX;
+				minYs[i] = bb.minY;
+				minZs[i] = bb.minZ;
+				maxXs[i] = bb.maxX;
+				maxYs[i] = bb.maxY;
+				maxZs[i] = bb.maxZ;
+				attributesPending = true;
+			}
+		}
+		teams.clear();
+		selectionSize = 0;
+		build();
+	}
+
+	/** Reads the team ids and flags of candidates with an entity, if not yet done */
+	private void ensureAttributes() {
+		if (!attributesPending) {
+			return;
+		}
+		attributesPending = false;
+		for (int i = 0; i < size; ++i) {
+			Entity entity = entities[i];
+			if (entity != null) {
+				teamIds[i] = getOrAddTeamId(entity.getTeam());
+				flags[i] = (byte)((entity.isEntityAlive() ? ALIVE : 0) | (entity.isInvisible() ? 0 : VISIBLE) | (entity.canBeCollidedWith() ? COLLIDABLE : 0));
+			}
+		}
+	}
+
+	/**
+	 * Appends a single candidate whose bounding box is centered horizontally on its position and rests on it,
+	 * as for most entities; {@link #build()} must be called once all candidates have been added
+	 * @param entity May be null for candidates that do not correspond to a live entity, e.g. synthetic test data
+	 */
+	public void add(@Nullable T entity, int id, double x, double y, double z, double halfWidth, double halfHeight) {
+		add(entity, id, x, y, z, x - halfWidth, y, z - halfWidth, x + halfWidth, y + 2.0D * halfHeight, z + halfWidth);
+	}
+
+	/**
+	 * Appends a single candidate with the given bounding box; {@link #build()} must be called once all candidates have been added
+	 * @param entity May be null for candidates that do not correspond to a live entity, e.g. synthetic test data
+	 */
+	public void add(@Nullable T entity, int id, double x, double y, double z, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+		ensureCapacity(size + 1);
+		entities[size] = entity;
+		ids[size] = id;
+		xs[size] = x;
+		ys[size] = y;
+		zs[size] = z;
+		minXs[size] = minX;
+		minYs[size] = minY;
+		minZs[size] = minZ;
+		maxXs[size] = maxX;
+		maxYs[size] = maxY;
+		maxZs[size] = maxZ;
+		teamIds[size] = 0;
+		flags[size] = (byte)(ALIVE | VISIBLE | COLLIDABLE);
+		++size;
+	}
+
+	/**
+	 * Sets the team id and flags of a candidate added with {@link #add}
+	 * @param teamId 0 for no team; otherwise any positive value shared by all candidates on the same team
+	 */
+	public void setAttributes(int i, int teamId, int flags) {
+		ensureAttributes();
+		this.teamIds[i] = teamId;
+		this.flags[i] = (byte) flags;
+	}
+
+	/**
+	 * Removes the candidate by moving the last candidate into its place. Only candidates at higher indices
+	 * are moved, so a selection may still be walked from its end while removing its candidates.
+	 */
+	public void remove(int i) {
+		int last = --size;
+		entities[i] = entities[last];
+		ids[i] = ids[last];
+		xs[i] = xs[last];
+		ys[i] = ys[last];
+		zs[i] = zs[last];
+		minXs[i] = minXs[last];
+		minYs[i] = minYs[last];
+		minZs[i] = minZs[last];
+		maxXs[i] = maxXs[last];
+		maxYs[i] = maxYs[last];
+		maxZs[i] = maxZs[last];
+		teamIds[i] = teamIds[last];
+		flags[i] = flags[last];
+		entities[last] = null;
+		build();
+	}
+
+	private int getOrAddTeamId(@Nullable Team team) {
+		if (team == null) {
+			return 0;
+		}
+		int i = teams.indexOf(team);
+		if (i < 0) {
+			teams.add(team);
+			return teams.size();
+		}
+		return i + 1;
+	}
+
+	/** Marks the grid for rebuilding after candidates have been added */
+	public void build() {
+		gridPending = true;
+	}
+
+	/** Releases all entity references held by the snapshot */
+	public void clear() {
+		Arrays.fill(entities, 0, size, null);
+		teams.clear();
+		size = 0;
+		selectionSize = 0;
+		attributesPending = false;
+		gridPending = false;
+		gridWidth = 0;
+		gridDepth = 0;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (entities.length < capacity) {
+			int n = Math.max(capacity, entities.length * 2);
+			entities = Arrays.copyOf(entities, n);
+			ids = Arrays.copyOf(ids, n);
+			xs = Arrays.copyOf(xs, n);
+			ys = Arrays.copyOf(ys, n);
+			zs = Arrays.copyOf(zs, n);
+			minXs = Arrays.copyOf(minXs, n);
+			minYs = Arrays.copyOf(minYs, n);
+			minZs = Arrays.copyOf(minZs, n);
+			maxXs = Arrays.copyOf(maxXs, n);
+			maxYs = Arrays.copyOf(maxYs, n);
+			maxZs = Arrays.copyOf(maxZs, n);
+			teamIds = Arrays.copyOf(teamIds, n);
+			flags = Arrays.copyOf(flags, n);
+			cellItems = new int[n];
+			selection = new int[n];
+			scratch = new double[n];
+		}
+	}
+
+	/** Counting sort of the candidate indices into grid cells */
+	private void buildGrid() {
+		if (size == 0) {
+			gridWidth = 0;
+			gridDepth = 0;
+			return;
+		}
+		double minX = xs[0], maxX = xs[0], minZ = zs[0], maxZ = zs[0];
+		for (int i = 1; i < size; ++i) {
+			minX = Math.min(minX, xs[i]);
+			maxX = Math.max(maxX, xs[i]);
+			minZ = Math.min(minZ, zs[i]);
+			maxZ = Math.max(maxZ, zs[i]);
+		}
+		cellSize = Math.max(CELL_SIZE, Math.max(maxX - minX, maxZ - minZ) / MAX_CELLS_PER_AXIS);
+		gridMinX = minX;
+		gridMinZ = minZ;
+		gridWidth = (int) ((maxX - minX) / cellSize) + 1;
+		gridDepth = (int) ((maxZ - minZ) / cellSize) + 1;
+		int cells = gridWidth * gridDepth;
+		if (cellStart.length < cells + 1) {
+			cellStart = new int[cells + 1];
+		} else {
+			Arrays.fill(cellStart, 0, cells + 1, 0);
+		}
+		for (int i = 0; i < size; ++i) {
+			++cellStart[getCell(i) + 1];
+		}
+		for (int c = 0; c < cells; ++c) {
+			cellStart[c + 1] += cellStart[c];
+		}
+		// cellStart[c] is now the first slot of each cell; use it as a cursor and shift back afterwards
+		for (int i = 0; i < size; ++i) {
+			cellItems[cellStart[getCell(i)]++] = i;
+		}
+		for (int c = cells; c > 0; --c) {
+			cellStart[c] = cellStart[c - 1];
+		}
+		cellStart[0] = 0;
+	}
+
+	private int getCell(int i) {
+		int cx = (int) ((xs[i] - gridMinX) / cellSize);
+		int cz = (int) ((zs[i] - gridMinZ) / cellSize);
+		return cz * gridWidth + cx;
+	}
+
+	/**
+	 * Starts a new selection containing every candidate with all of the required flags
+	 * @param required Any combination of {@link #ALIVE}, {@link #VISIBLE} and {@link #COLLIDABLE}, or 0
+	 * @return the number of selected candidates
+	 */
+	public int selectAll(int required) {
+		if (required != 0) {
+			ensureAttributes();
+		}
+		int n = 0;
+		for (int i = 0; i < size; ++i) {
+			selection[n] = i;
+			n += ((flags[i] & required) == required ? 1 : 0);
+		}
+		return (selectionSize = n);
+	}
+
+	/**
+	 * Starts a new selection containing every candidate whose position lies in a grid cell overlapping the horizontal area
+	 * @return the number of selected candidates
+	 */
+	public int selectNear(double minX, double minZ, double maxX, double maxZ) {
+		if (gridPending) {
+			gridPending = false;
+			buildGrid();
+		}
+		int n = 0;
+		if (size > 0 && maxX >= gridMinX && maxZ >= gridMinZ && minX <= gridMinX + gridWidth * cellSize && minZ <= gridMinZ + gridDepth * cellSize) {
+			int x0 = MathHelper.clamp((int) Math.floor((minX - gridMinX) / cellSize), 0, gridWidth - 1);
+			int x1 = MathHelper.clamp((int) Math.floor((maxX - gridMinX) / cellSize), 0, gridWidth - 1);
+			int z0 = MathHelper.clamp((int) Math.floor((minZ - gridMinZ) / cellSize), 0, gridDepth - 1);
+			int z1 = MathHelper.clamp((int) Math.floor((maxZ - gridMinZ) / cellSize), 0, gridDepth - 1);
+			for (int cz = z0; cz <= z1; ++cz) {
+				for (int cx = x0; cx <= x1; ++cx) {
+					int c = cz * gridWidth + cx;
+					for (int k = cellStart[c]; k < cellStart[c + 1]; ++k) {
+						selection[n++] = cellItems[k];
+					}
+				}
+			}
+			// Cells are visited by area; restore snapshot order
+			Arrays.sort(selection, 0, n);
+		}
+		return (selectionSize = n);
+	}
+
+	/** Returns the number of candidates in the current selection */
+	public int getSelectionSize() {
+		return selectionSize;
+	}
+
+	/** Returns the snapshot index of the k-th selected candidate */
+	public int getSelected(int k) {
+		return selection[k];
+	}
+
+	/** Returns the entity of the k-th selected candidate; may be null for synthetic candidates */
+	public T getSelectedEntity(int k) {
+		return getEntity(selection[k]);
+	}
+
+	/**
+	 * Retains only selected candidates that are (or are not) within the horizontal field of view,
+	 * using the same test as {@link TargetUtils#isTargetInFrontOf}
+	 * @param yaw    Facing of the cone's apex, in degrees, e.g. the seeker's rotationYaw
+	 * @param inside True to retain candidates inside the cone, false to retain those outside it
+	 * @return the number of candidates remaining in the selection
+	 */
+	public int retainInCone(double x, double z, float yaw, float fov, boolean inside) {
+		double cos = TargetUtils.getFovCosine(fov);
+		float f = yaw * 0.017453292F;
+		double fx = -MathHelper.sin(f);
+		double fz = MathHelper.cos(f);
+		int n = 0;
+		for (int k = 0; k < selectionSize; ++k) {
+			int i = selection[k];
+			selection[n] = i;
+			n += (TargetUtils.isInFrontOf(xs[i] - x, zs[i] - z, fx, fz, cos) == inside ? 1 : 0);
+		}
+		return (selectionSize = n);
+	}
+
+	/**
+	 * Retains only selected candidates whose position is within the radius of the point
+	 * @return the number of candidates remaining in the selection
+	 */
+	public int retainInRadius(double x, double y, double z, double radius) {
+		for (int k = 0; k < selectionSize; ++k) {
+			int i = selection[k];
+			double dx = xs[i] - x;
+			double dy = ys[i] - y;
+			double dz = zs[i] - z;
+			scratch[k] = dx * dx + dy * dy + dz * dz;
+		}
+		return compact(radius * radius, true);
+	}
+
+	/**
+	 * Retains only selected candidates whose bounding box intersects the given box, as {@link AxisAlignedBB#intersects} does
+	 * @return the number of candidates remaining in the selection
+	 */
+	public int retainIntersecting(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+		int n = 0;
+		for (int k = 0; k < selectionSize; ++k) {
+			int i = selection[k];
+			selection[n] = i;
+			n += (intersects(i, minX, minY, minZ, maxX, maxY, maxZ) ? 1 : 0);
+		}
+		return (selectionSize = n);
+	}
+
+	/**
+	 * Retains only selected candidates whose bounding box intersects any of the cubes
+	 * @param centers Centers of the cubes, as x, y, z triples
+	 * @param radius  Half the edge length of each cube
+	 * @return the number of candidates remaining in the selection
+	 */
+	public int retainIntersectingCubes(double[] centers, double radius) {
+		int n = 0;
+		for (int k = 0; k < selectionSize; ++k) {
+			int i = selection[k];
+			selection[n] = i;
+			for (int c = 0; c < centers.length; c += 3) {
+				if (intersects(i, centers[c] - radius, centers[c + 1] - radius, centers[c + 2] - radius, centers[c] + radius, centers[c + 1] + radius, centers[c + 2] + radius)) {
+					++n;
+					break;
+				}
+			}
+		}
+		return (selectionSize = n);
+	}
+
+	/**
+	 * Retains only selected candidates struck by a box swept from (x, y, z) to (x + dx, y + dy, z + dz),
+	 * using the same test as {@link SweptCollider}; see {@link #getSelectedHitFraction(int)}
+	 * @param halfWidth  Horizontal half-extent of the moving box; 0.0D sweeps a single point
+	 * @param halfHeight Vertical half-extent of the moving box; 0.0D sweeps a single point
+	 * @param hitBox     Directional expansion of the candidates' boxes, as for {@link AxisAlignedBB#expand}
+	 * @return the number of candidates remaining in the selection
+	 */
+	public int retainRayHits(double x, double y, double z, double dx, double dy, double dz, double halfWidth, double halfHeight, double hitBox) {
+		// Directional like AxisAlignedBB#expand: a positive modifier extends the max sides, a negative one the min sides
+		double lo = Math.min(hitBox, 0.0D);
+		double hi = Math.max(hitBox, 0.0D);
+		for (int k = 0; k < selectionSize; ++k) {
+			int i = selection[k];
+			scratch[k] = SweptCollider.getInterceptFraction(x, y, z, dx, dy, dz,
+					minXs[i] - halfWidth + lo, minYs[i] - halfHeight + lo, minZs[i] - halfWidth + lo,
+					maxXs[i] + halfWidth + hi, maxYs[i] + halfHeight + hi, maxZs[i] + halfWidth + hi);
+		}
+		return compact(0.0D, false);
+	}
+
+	/**
+	 * Returns the fraction of the segment at which the k-th selected candidate was struck,
+	 * valid only immediately after {@link #retainRayHits}
+	 */
+	public double getSelectedHitFraction(int k) {
+		return scratch[k];
+	}
+
+	/**
+	 * Retains only selected candidates that are not on the given team
+	 * @param teamId See {@link #getTeamId(Team)}; 0 retains every candidate
+	 * @return the number of candidates remaining in the selection
+	 */
+	public int retainNotOnTeam(int teamId) {
+		if (teamId == 0) {
+			return selectionSize;
+		}
+		ensureAttributes();
+		int n = 0;
+		for (int k = 0; k < selectionSize; ++k) {
+			int i = selection[k];
+			selection[n] = i;
+			n += (teamIds[i] != teamId ? 1 : 0);
+		}
+		return (selectionSize = n);
+	}
+
+	/**
+	 * Compacts the selection, keeping scratch values paired with their candidates
+	 * @param below True to keep candidates whose scratch value is at most the limit, false to keep those at least the limit
+	 */
+	private int compact(double limit, boolean below) {
+		int n = 0;
+		for (int k = 0; k < selectionSize; ++k) {
+			double v = scratch[k];
+			selection[n] = selection[k];
+			scratch[n] = v;
+			n += ((below ? v <= limit : v >= limit) ? 1 : 0);
+		}
+		return (selectionSize = n);
+	}
+}
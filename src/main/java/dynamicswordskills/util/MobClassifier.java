@@ -0,0 +1,111 @@
+/**
+    Copyright (C) <2017> <coolAlias>
+
+    This file is part of coolAlias' Dynamic Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package dynamicswordskills.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nullable;
+
+import dynamicswordskills.ref.Config;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityList;
+import net.minecraft.entity.EntityLiving;
+import net.minecraft.entity.EntityLivingBase;
+import net.minecraft.entity.IRangedAttackMob;
+import net.minecraft.entity.SharedMonsterAttributes;
+import net.minecraft.entity.ai.attributes.IAttributeInstance;
+import net.minecraft.entity.monster.IMob;
+import net.minecraft.util.ResourceLocation;
+
+/**
+ *
+ * Cached classification of entities for {@link TargetUtils#isMobEntity(Entity)}.
+ *
+ * Whether an entity class implements IMob or IRangedAttackMob never changes, so that part is
+ * resolved once per class together with any config override. Other living entities are still
+ * checked per entity against their current attack target and ATTACK_DAMAGE attribute.
+ *
+ */
+public class MobClassifier
+{
+	/** Static part of the classification for an entity class */
+	public static enum MobType {
+		/** Always considered a mob */
+		HOSTILE,
+		/** Never considered a mob */
+		PASSIVE,
+		/** Depends on the entity's current attack target and attack damage */
+		DYNAMIC;
+	}
+
+	private static final Map<Class<? extends Entity>, MobType> CLASS_TYPES = new ConcurrentHashMap<Class<? extends Entity>, MobType>();
+
+	/**
+	 * Clears all cached classifications, e.g. after the config overrides have changed
+	 */
+	public static void invalidate() {
+		CLASS_TYPES.clear();
+	}
+
+	/**
+	 * Returns true if the entity should be considered a hostile mob; see {@link TargetUtils#isMobEntity(Entity)}
+	 */
+	public static boolean isMobEntity(@Nullable Entity entity) {
+		if (entity == null) {
+			return false;
+		}
+		switch (getMobType(entity.getClass())) {
+		case HOSTILE: return true;
+		case PASSIVE: return false;
+		default: break;
+		}
+		if (entity instanceof EntityLiving && ((EntityLiving) entity).getAttackTarget() != null) {
+			return true;
+		} else if (entity instanceof EntityLivingBase) {
+			IAttributeInstance damage = ((EntityLivingBase) entity).getAttributeMap().getAttributeInstance(SharedMonsterAttributes.ATTACK_DAMAGE);
+			return damage != null && damage.getAttributeValue() > 0;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the static classification for the entity class, computing and caching it on first use
+	 */
+	public static MobType getMobType(Class<? extends Entity> clazz) {
+		MobType type = CLASS_TYPES.get(clazz);
+		if (type == null) {
+			type = classify(clazz);
+			CLASS_TYPES.put(clazz, type);
+		}
+		return type;
+	}
+
+	private static MobType classify(Class<? extends Entity> clazz) {
+		ResourceLocation name = EntityList.getKey(clazz);
+		Boolean override = (name == null ? null : Config.getHostilityOverride(name));
+		if (override != null) {
+			return (override ? MobType.HOSTILE : MobType.PASSIVE);
+		} else if (IMob.class.isAssignableFrom(clazz) || IRangedAttackMob.class.isAssignableFrom(clazz)) {
+			return MobType.HOSTILE;
+		} else if (!EntityLivingBase.class.isAssignableFrom(clazz)) {
+			return MobType.PASSIVE;
+		}
+		return MobType.DYNAMIC;
+	}
+}
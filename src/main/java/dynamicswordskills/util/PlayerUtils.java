@@ -114,7 +114,7 @@ public class PlayerUtils
 	public static void playSound(EntityPlayer player, SoundEvent sound, SoundCategory category, float volume, float pitch) {
 		if (player.getEntityWorld().isRemote) {
 			PacketDispatcher.sendToServer(new PlaySoundPacket(sound, category, volume, pitch, player));
-		} else {
+		} else if (!TickWatchdog.skipSound()) {
 			PacketDispatcher.sendTo(new PlaySoundPacket(sound, category, volume, pitch), (EntityPlayerMP) player);
 		}
 	}
@@ -135,12 +135,17 @@ public class PlayerUtils
 
 	/**
 	 * Plays a sound on the server with randomized volume and pitch; no effect if called on client
+	 * or while the {@link TickWatchdog} is skipping sounds
 	 * @param f		Volume: nextFloat() * f + add
 	 * @param add	Pitch: 1.0F / (nextFloat() * f + add)
 	 */
 	public static void playSoundAtEntity(World world, Entity entity, SoundEvent sound, SoundCategory category, float f, float add) {
+		// Always draw from the world's random so skipping the sound cannot change later random outcomes
 		float volume = world.rand.nextFloat() * f + add;
 		float pitch = 1.0F / (world.rand.nextFloat() * f + add);
+		if (world.isRemote || TickWatchdog.skipSound()) {
+			return;
+		}
 		world.playSound(null, entity.getPosition(), sound, category, volume, pitch);
 	}
 
@@ -0,0 +1,249 @@
+/**
+    Copyright (C) <2017> <coolAlias>
+
+    This file is part of coolAlias' Dynamic Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package dynamicswordskills.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.util.EntitySelectors;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.RayTraceResult;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+
+/**
+ *
+ * Continuous collision detection for a box moving along a straight path during one tick.
+ *
+ * The moving box is treated as a point swept against each candidate's bounding box grown by
+ * the mover's half-extents, so fast movers cannot tunnel through targets between ticks. As with
+ * the vanilla {@link AxisAlignedBB#expand} used by the original impact check, the hit box modifier
+ * only extends the positive sides of each box when positive and the negative sides when negative.
+ * Blocks and entities are resolved in a single call, with entities taking priority over any block
+ * that lies beyond them along the path. Spectators are never candidates.
+ *
+ * Instances keep scratch state between calls and are not thread-safe; keep one per thread or per
+ * entity, e.g. as a field in a projectile, and reuse it every tick.
+ *
+ */
+public class SweptCollider
+{
+	/** Reused list of candidate entities near the swept path */
+	private final List<Entity> candidates = new ArrayList<Entity>();
+
+	/** Reused copy of {@link #candidates} against which the path is tested in bulk */
+	private final EntitySnapshot<Entity> snapshot = new EntitySnapshot<Entity>();
+
+	/** Fraction along the path at which the last {@link #sweep} call found its hit, or 1.0D if nothing was hit */
+	private double lastHitFraction = 1.0D;
+
+	/** Whether to find block hits with {@link TargetUtils#getVoxelRaycaster()} instead of {@link World#rayTraceBlocks} */
+	private boolean useVoxelRaycaster;
+
+	/**
+	 * Sets whether block hits are found with the {@link VoxelRaycaster} rather than the vanilla ray trace
+	 */
+	public SweptCollider setUseVoxelRaycaster(boolean useVoxelRaycaster) {
+		this.useVoxelRaycaster = useVoxelRaycaster;
+		return this;
+	}
+
+	/**
+	 * Returns the fraction of the path, from 0.0D to 1.0D, travelled before the last hit
+	 */
+	public double getLastHitFraction() {
+		return lastHitFraction;
+	}
+
+	/**
+	 * Sweeps the entity's collision point from its current position along its current motion
+	 * @param entity	The moving entity; it is never considered a candidate
+	 * @param shooter	An entity not to be collided with unless the flag is true, generally the shooter
+	 * @param offsetY	Vertical offset from the entity's feet at which to start the sweep
+	 * @param hitBox	The amount by which to expand the collided entities' bounding boxes (may be negative)
+	 * @param flag		Allows collision with the shooter, e.g. (ticksInAir >= 5)
+	 */
+	@Nullable
+	public RayTraceResult sweep(World world, Entity entity, @Nullable Entity shooter, double offsetY, double hitBox, boolean flag) {
+		AxisAlignedBB area = getImpactArea(entity.getEntityBoundingBox(), entity.motionX, entity.motionY, entity.motionZ);
+		return sweep(world, entity, shooter, entity.posX, entity.posY + offsetY, entity.posZ, entity.motionX, entity.motionY, entity.motionZ, 0.0D, 0.0D, hitBox, flag, area);
+	}
+
+	/**
+	 * Returns the same candidate area as the original impact check: the mover's box extended along its motion, then by 1 on each positive side
+	 */
+	static AxisAlignedBB getImpactArea(AxisAlignedBB bb, double dx, double dy, double dz) {
+		return new AxisAlignedBB(
+				bb.minX + Math.min(dx, 0.0D), bb.minY + Math.min(dy, 0.0D), bb.minZ + Math.min(dz, 0.0D),
+				bb.maxX + Math.max(dx, 0.0D) + 1.0D, bb.maxY + Math.max(dy, 0.0D) + 1.0D, bb.maxZ + Math.max(dz, 0.0D) + 1.0D);
+	}
+
+	/**
+	 * Sweeps a box centered on the start position along the given displacement
+	 * @param entity		The moving entity, which is excluded from the candidates; may be a projectile or player
+	 * @param shooter		An entity not to be collided with unless the flag is true
+	 * @param halfWidth		Horizontal half-extent of the moving box; 0.0D sweeps a single point
+	 * @param halfHeight	Vertical half-extent of the moving box; 0.0D sweeps a single point
+	 * @param hitBox		The amount by which to expand the collided entities' bounding boxes (may be negative)
+	 * @param flag			Allows collision with the shooter
+	 * @return the nearest entity hit, otherwise the block hit, or null if the path is clear
+	 */
+	@Nullable
+	public RayTraceResult sweep(World world, Entity entity, @Nullable Entity shooter, double x, double y, double z, double dx, double dy, double dz, double halfWidth, double halfHeight, double hitBox, boolean flag) {
+		double grow = 1.0D + Math.max(halfWidth, halfHeight) + Math.abs(hitBox);
+		AxisAlignedBB area = new AxisAlignedBB(
+				Math.min(x, x + dx) - grow, Math.min(y, y + dy) - grow, Math.min(z, z + dz) - grow,
+				Math.max(x, x + dx) + grow, Math.max(y, y + dy) + grow, Math.max(z, z + dz) + grow);
+		return sweep(world, entity, shooter, x, y, z, dx, dy, dz, halfWidth, halfHeight, hitBox, flag, area);
+	}
+
+	/**
+	 * Performs the sweep against candidates intersecting the given area
+	 */
+	@Nullable
+	private RayTraceResult sweep(World world, Entity entity, @Nullable Entity shooter, double x, double y, double z, double dx, double dy, double dz, double halfWidth, double halfHeight, double hitBox, boolean flag, AxisAlignedBB area) {
+		lastHitFraction = 1.0D;
+		RayTraceResult result = null;
+		VoxelRaycaster raycaster = null;
+		double maxFraction = 1.0D;
+		if (useVoxelRaycaster) {
+			raycaster = TargetUtils.getVoxelRaycaster();
+			if (raycaster.trace(world, x, y, z, x + dx, y + dy, z + dz, false)) {
+				maxFraction = raycaster.getResult().getFraction();
+				lastHitFraction = maxFraction;
+			}
+		} else {
+			result = world.rayTraceBlocks(new Vec3d(x, y, z), new Vec3d(x + dx, y + dy, z + dz), false, true, false);
+			if (result != null && result.hitVec != null) {
+				maxFraction = getFraction(x, y, z, dx, dy, dz, result.hitVec);
+				lastHitFraction = maxFraction;
+			}
+		}
+		collectCandidates(world, entity, area);
+		snapshot.fill(candidates);
+		candidates.clear();
+		snapshot.selectAll(EntitySnapshot.COLLIDABLE);
+		int n = snapshot.retainRayHits(x, y, z, dx, dy, dz, halfWidth, halfHeight, hitBox);
+		Entity target = null;
+		double best = maxFraction;
+		for (int k = 0; k < n; ++k) {
+			Entity candidate = snapshot.getSelectedEntity(k);
+			if (candidate == shooter && !flag) {
+				continue;
+			}
+			double t = snapshot.getSelectedHitFraction(k);
+			if (isCloserHit(t, best, maxFraction, target != null)) {
+				target = candidate;
+				best = t;
+			}
+		}
+		snapshot.clear();
+		if (target != null) {
+			lastHitFraction = best;
+			return new RayTraceResult(target);
+		} else if (raycaster != null) {
+			return raycaster.getResult().toRayTraceResult();
+		}
+		return result;
+	}
+
+	/**
+	 * Returns true if a hit at fraction t replaces the best hit so far. Ties keep the first candidate,
+	 * and a hit at the very start is replaced by any other, as in the original check.
+	 * @param hasTarget True if a candidate has already been hit
+	 */
+	static boolean isCloserHit(double t, double best, double maxFraction, boolean hasTarget) {
+		return t >= 0.0D && t <= maxFraction && (!hasTarget || t < best || best == 0.0D);
+	}
+
+	/**
+	 * Fills {@link #candidates} with all non-spectating entities other than the mover whose bounding boxes
+	 * intersect the area, as {@link World#getEntitiesWithinAABBExcludingEntity} does but without a new list
+	 */
+	private void collectCandidates(World world, Entity entity, AxisAlignedBB area) {
+		candidates.clear();
+		int minX = MathHelper.floor((area.minX - World.MAX_ENTITY_RADIUS) / 16.0D);
+		int maxX = MathHelper.floor((area.maxX + World.MAX_ENTITY_RADIUS) / 16.0D);
+		int minZ = MathHelper.floor((area.minZ - World.MAX_ENTITY_RADIUS) / 16.0D);
+		int maxZ = MathHelper.floor((area.maxZ + World.MAX_ENTITY_RADIUS) / 16.0D);
+		for (int i = minX; i <= maxX; ++i) {
+			for (int j = minZ; j <= maxZ; ++j) {
+				Chunk chunk = world.getChunkProvider().getLoadedChunk(i, j);
+				if (chunk != null) {
+					chunk.getEntitiesWithinAABBForEntity(entity, area, candidates, EntitySelectors.NOT_SPECTATING);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Slab test of the segment from (x, y, z) to (x + dx, y + dy, z + dz) against the box. As with
+	 * {@link AxisAlignedBB#calculateIntercept}, a segment starting inside the box is only considered
+	 * to hit it where it exits.
+	 * @return the fraction of the segment at which the box is first struck, or -1.0D if it is not struck
+	 */
+	public static double getInterceptFraction(double x, double y, double z, double dx, double dy, double dz, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+		double tMin = Double.NEGATIVE_INFINITY;
+		double tMax = Double.POSITIVE_INFINITY;
+		if (dx != 0.0D) {
+			double t1 = (minX - x) / dx;
+			double t2 = (maxX - x) / dx;
+			tMin = Math.max(tMin, Math.min(t1, t2));
+			tMax = Math.min(tMax, Math.max(t1, t2));
+		} else if (x < minX || x > maxX) {
+			return -1.0D;
+		}
+		if (dy != 0.0D) {
+			double t1 = (minY - y) / dy;
+			double t2 = (maxY - y) / dy;
+			tMin = Math.max(tMin, Math.min(t1, t2));
+			tMax = Math.min(tMax, Math.max(t1, t2));
+		} else if (y < minY || y > maxY) {
+			return -1.0D;
+		}
+		if (dz != 0.0D) {
+			double t1 = (minZ - z) / dz;
+			double t2 = (maxZ - z) / dz;
+			tMin = Math.max(tMin, Math.min(t1, t2));
+			tMax = Math.min(tMax, Math.max(t1, t2));
+		} else if (z < minZ || z > maxZ) {
+			return -1.0D;
+		}
+		if (tMin > tMax || tMax < 0.0D) {
+			return -1.0D;
+		} else if (tMin >= 0.0D) {
+			return (tMin <= 1.0D ? tMin : -1.0D);
+		}
+		// Started inside the box: only the exit face can be struck
+		return (tMax <= 1.0D ? tMax : -1.0D);
+	}
+
+	/** Returns the fraction of the displacement travelled to reach the point */
+	private static double getFraction(double x, double y, double z, double dx, double dy, double dz, Vec3d point) {
+		double lengthSq = dx * dx + dy * dy + dz * dz;
+		if (lengthSq < 1.0E-12D) {
+			return 0.0D;
+		}
+		return ((point.x - x) * dx + (point.y - y) * dy + (point.z - z) * dz) / lengthSq;
+	}
+}
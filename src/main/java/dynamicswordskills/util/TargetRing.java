@@ -0,0 +1,139 @@
+/**
+    Copyright (C) <2017> <coolAlias>
+
+    This file is part of coolAlias' Dynamic Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package dynamicswordskills.util;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Predicate;
+
+import net.minecraft.entity.Entity;
+
+/**
+ *
+ * Ring of lock-on candidates sorted by distance from the seeker, used to cycle through
+ * every valid target in order without re-querying the world on each key press.
+ *
+ * The ring is only rebuilt from a look query via {@link #refresh} when cycling is requested
+ * and the stored candidates are missing or stale; cycling with {@link #next} otherwise only
+ * walks the stored array, skipping entries that are no longer valid.
+ *
+ */
+public class TargetRing<T extends Entity>
+{
+	private Entity[] entries = new Entity[8];
+
+	private double[] distances = new double[8];
+
+	private int size;
+
+	/** True once the ring has been filled at least once since the last {@link #clear()} */
+	private boolean isPopulated;
+
+	/** Index of the most recently returned entry, used to find the current target without searching */
+	private int cursor = -1;
+
+	/** Returns true if the ring has been populated since it was last cleared */
+	public boolean isPopulated() {
+		return isPopulated;
+	}
+
+	/** Returns the number of candidates currently in the ring */
+	public int size() {
+		return size;
+	}
+
+	/** Removes all candidates */
+	public void clear() {
+		Arrays.fill(entries, 0, size, null);
+		size = 0;
+		cursor = -1;
+		isPopulated = false;
+	}
+
+	/**
+	 * Replaces the ring contents with the candidates, sorted by distance from the seeker
+	 * @param current The current target, if any, so that the cursor remains on it after sorting
+	 */
+	public void refresh(Entity seeker, List<? extends T> candidates, @Nullable T current) {
+		Arrays.fill(entries, 0, size, null);
+		int n = candidates.size();
+		if (entries.length < n) {
+			int capacity = Math.max(n, entries.length * 2);
+			entries = new Entity[capacity];
+			distances = new double[capacity];
+		}
+		size = 0;
+		for (int i = 0; i < n; ++i) {
+			T entity = candidates.get(i);
+			if (entity == seeker) {
+				continue;
+			}
+			double d = seeker.getDistanceSq(entity);
+			// insertion sort: candidate lists are small and usually already close to sorted
+			int j = size - 1;
+			while (j >= 0 && distances[j] > d) {
+				entries[j + 1] = entries[j];
+				distances[j + 1] = distances[j];
+				--j;
+			}
+			entries[j + 1] = entity;
+			distances[j + 1] = d;
+			++size;
+		}
+		cursor = indexOf(current);
+		isPopulated = true;
+	}
+
+	/**
+	 * Returns the next valid candidate after the current target in distance order, wrapping around to
+	 * the nearest candidate, or null if there is no valid candidate other than the current target
+	 * @param current The current target; if null or not in the ring, the nearest valid candidate is returned
+	 * @param filter  Candidates failing this check are skipped
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	public T next(@Nullable T current, Predicate<? super T> filter) {
+		if (size == 0) {
+			return null;
+		}
+		int start = (cursor >= 0 && cursor < size && entries[cursor] == current ? cursor : indexOf(current));
+		for (int i = 1; i <= size; ++i) {
+			int index = (start < 0 ? i - 1 : (start + i) % size);
+			T entity = (T) entries[index];
+			if (entity != current && filter.apply(entity)) {
+				cursor = index;
+				return entity;
+			}
+		}
+		return null;
+	}
+
+	private int indexOf(@Nullable T entity) {
+		if (entity != null) {
+			for (int i = 0; i < size; ++i) {
+				if (entries[i] == entity) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+}
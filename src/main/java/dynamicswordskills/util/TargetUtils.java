@@ -18,6 +18,7 @@
 package dynamicswordskills.util;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import javax.annotation.Nullable;
@@ -27,16 +28,12 @@ import com.google.common.collect.Lists;
 
 import net.minecraft.client.Minecraft;
 import net.minecraft.entity.Entity;
-import net.minecraft.entity.EntityLiving;
 import net.minecraft.entity.EntityLivingBase;
-import net.minecraft.entity.IRangedAttackMob;
-import net.minecraft.entity.SharedMonsterAttributes;
-import net.minecraft.entity.ai.attributes.IAttributeInstance;
-import net.minecraft.entity.monster.IMob;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.util.EntitySelectors;
 import net.minecraft.util.math.AxisAlignedBB;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.RayTraceResult;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.World;
@@ -56,6 +53,47 @@ public class TargetUtils
 	/** Max distance squared, used for comparing target distances (avoids having to call sqrt) */
 	private static final double MAX_DISTANCE_SQ = MAX_DISTANCE * MAX_DISTANCE;
 
+	/** Scratch collider for {@link #checkForImpact}, one per thread since the integrated server shares the JVM with the client */
+	private static final ThreadLocal<SweptCollider> COLLIDER = ThreadLocal.withInitial(SweptCollider::new);
+
+	/** Per-thread voxel raycaster, see {@link #getVoxelRaycaster()} */
+	private static final ThreadLocal<VoxelRaycaster> RAYCASTER = ThreadLocal.withInitial(VoxelRaycaster::new);
+
+	/** Cosine of each whole-degree field of view from 0 to 180, used by {@link #getFovCosine(float)} */
+	private static final double[] FOV_COSINES = new double[181];
+
+	static {
+		for (int i = 0; i < FOV_COSINES.length; ++i) {
+			FOV_COSINES[i] = Math.cos(Math.toRadians(i));
+		}
+	}
+
+	/** Horizontal distance squared below which a target is considered to be on top of the seeker */
+	private static final double MIN_HORIZONTAL_DISTANCE_SQ = 1.0E-4D;
+
+	/**
+	 * Returns the current thread's {@link VoxelRaycaster}, a faster alternative to {@link World#rayTraceBlocks}
+	 * for skill code; the returned instance and its result are reused by subsequent calls on the same thread
+	 */
+	public static VoxelRaycaster getVoxelRaycaster() {
+		return RAYCASTER.get();
+	}
+
+	/**
+	 * Same check as {@link EntityLivingBase#canEntityBeSeen(Entity)}, including blocks without a collision box, but using the {@link VoxelRaycaster}
+	 */
+	public static boolean canSeeTarget(Entity seeker, Entity target) {
+		return !getVoxelRaycaster().trace(seeker.getEntityWorld(), seeker.posX, seeker.posY + seeker.getEyeHeight(), seeker.posZ, target.posX, target.posY + target.getEyeHeight(), target.posZ, false, false);
+	}
+
+	/**
+	 * Line of sight check for skills that may choose the ray trace engine
+	 * @param useVoxelRaycaster True for {@link #canSeeTarget(Entity, Entity)}, false for the vanilla {@link EntityLivingBase#canEntityBeSeen(Entity)}
+	 */
+	public static boolean canSeeTarget(EntityLivingBase seeker, Entity target, boolean useVoxelRaycaster) {
+		return (useVoxelRaycaster ? canSeeTarget(seeker, target) : seeker.canEntityBeSeen(target));
+	}
+
 	/**
 	 * Returns the player's current reach distance based on game mode.
 	 * The values were determined via actual in-game testing as the reach distances
@@ -73,7 +111,15 @@ public class TargetUtils
 	 * for predicting misses from the client side; does not use the mouse over object.
 	 */
 	public static boolean canReachTarget(EntityPlayer player, Entity target) {
-		return (player.canEntityBeSeen(target) && player.getDistanceSq(target) < getReachDistanceSq(player));
+		return canReachTarget(player, target, false);
+	}
+
+	/**
+	 * See {@link #canReachTarget(EntityPlayer, Entity)}
+	 * @param useVoxelRaycaster See {@link #canSeeTarget(EntityLivingBase, Entity, boolean)}
+	 */
+	public static boolean canReachTarget(EntityPlayer player, Entity target, boolean useVoxelRaycaster) {
+		return (canSeeTarget(player, target, useVoxelRaycaster) && player.getDistanceSq(target) < getReachDistanceSq(player));
 	}
 
 	/**
@@ -84,35 +130,16 @@ public class TargetUtils
 	 * @param flag		Optional flag to allow collision with shooter, e.g. (ticksInAir >= 5)
 	 */
 	public static RayTraceResult checkForImpact(World world, Entity entity, Entity shooter, double hitBox, boolean flag) {
-		double posY = entity.posY + (entity.height / 2.0D); // fix for Dash
-		Vec3d vec3 = new Vec3d(entity.posX, posY, entity.posZ);
-		Vec3d vec31 = new Vec3d(entity.posX + entity.motionX, posY + entity.motionY, entity.posZ + entity.motionZ);
-		RayTraceResult result = world.rayTraceBlocks(vec3, vec31, false, true, false);
-		vec3 = new Vec3d(entity.posX, posY, entity.posZ);
-		vec31 = new Vec3d(entity.posX + entity.motionX, posY + entity.motionY, entity.posZ + entity.motionZ);
-		if (result != null) {
-			vec31 = new Vec3d(result.hitVec.x, result.hitVec.y, result.hitVec.z);
-		}
-		Entity target = null;
-		List<Entity> list = world.getEntitiesWithinAABBExcludingEntity(entity, entity.getEntityBoundingBox().expand(entity.motionX, entity.motionY, entity.motionZ).expand(1.0D, 1.0D, 1.0D));
-		double d0 = 0.0D;
-		for (int i = 0; i < list.size(); ++i) {
-			Entity entity1 = list.get(i);
-			if (entity1.canBeCollidedWith() && (entity1 != shooter || flag)) {
-				AxisAlignedBB axisalignedbb = entity1.getEntityBoundingBox().expand(hitBox, hitBox, hitBox);
-				RayTraceResult result1 = axisalignedbb.calculateIntercept(vec3, vec31);
-				if (result1 != null) {
-					double d1 = vec3.distanceTo(result1.hitVec);
-					if (d1 < d0 || d0 == 0.0D) {
-						target = entity1;
-						d0 = d1;
-					}
-				}
-			}
-		}
-		if (target != null) {
-			result = new RayTraceResult(target);
-		}
+		return checkForImpact(world, entity, shooter, hitBox, flag, false);
+	}
+
+	/**
+	 * See {@link #checkForImpact(World, Entity, Entity, double, boolean)}
+	 * @param useVoxelRaycaster True to find block hits with the {@link VoxelRaycaster} instead of the vanilla ray trace
+	 */
+	public static RayTraceResult checkForImpact(World world, Entity entity, Entity shooter, double hitBox, boolean flag, boolean useVoxelRaycaster) {
+		// offset for Dash
+		RayTraceResult result = COLLIDER.get().setUseVoxelRaycaster(useVoxelRaycaster).sweep(world, entity, shooter, entity.height / 2.0D, hitBox, flag);
 		if (result != null && result.entityHit instanceof EntityPlayer) {
 			EntityPlayer player = (EntityPlayer) result.entityHit;
 			if (player.capabilities.disableDamage || (shooter instanceof EntityPlayer
@@ -163,21 +190,13 @@ public class TargetUtils
 	/**
 	 * Returns true for the following 'mob' type entities:
 	 *   - Instances of IMob and IRangedAttackMob
-	 *   - EntityLiving types if {@link EntityLiving#getAttackTarget()} is not null
+	 *   - EntityLiving types if {@link net.minecraft.entity.EntityLiving#getAttackTarget()} is not null
 	 *   - EntityLivingBase types if they have an ATTACK_DAMAGE attribute value > 0
+	 * Entity types listed in the hostility overrides config setting are always or never considered mobs.
+	 * Classifications are cached by {@link MobClassifier}.
 	 */
 	public static final boolean isMobEntity(Entity entity) {
-		if (entity instanceof IMob || entity instanceof IRangedAttackMob) {
-			return true;
-		} else if (entity instanceof EntityLiving && ((EntityLiving) entity).getAttackTarget() != null) {
-			return true;
-		} else if (entity instanceof EntityLivingBase) {
-			IAttributeInstance damage = ((EntityLivingBase) entity).getAttributeMap().getAttributeInstance(SharedMonsterAttributes.ATTACK_DAMAGE);
-			if (damage != null && damage.getAttributeValue() > 0) {
-				return true;
-			}
-		}
-		return false;
+		return MobClassifier.isMobEntity(entity);
 	}
 
 	/** Calls {@link #acquireAllLookTargets(EntityLivingBase, int, double, List)} with the {@link #getDefaultSelectors()} */
@@ -261,20 +280,59 @@ public class TargetUtils
 	}
 
 	/**
-	 * Returns whether the target is in the seeker's field of view based on relative position
+	 * Returns the cosine threshold for the given field of view, looked up from a table for whole-degree values
+	 * @param fov half-angle in degrees; values of 180 or more accept every direction
+	 */
+	public static final double getFovCosine(float fov) {
+		if (fov >= 180.0F) {
+			return -1.0D;
+		} else if (fov <= 0.0F) {
+			return 1.0D;
+		}
+		int i = (int) fov;
+		return (i == fov ? FOV_COSINES[i] : Math.cos(Math.toRadians(fov)));
+	}
+
+	/**
+	 * Returns whether the target is in the seeker's field of view based on relative position.
+	 * A target directly on top of the seeker is only in front of it when the field of view covers every direction.
 	 * @param fov seeker's field of view; a wider angle returns true more often
 	 */
 	public static final boolean isTargetInFrontOf(Entity seeker, Entity target, float fov) {
-		double dx = target.posX - seeker.posX;
-		double dz;
-		for (dz = target.posZ - seeker.posZ; dx * dx + dz * dz < 1.0E-4D; dz = (Math.random() - Math.random()) * 0.01D) {
-			dx = (Math.random() - Math.random()) * 0.01D;
+		return isTargetInFrontOf(target.posX - seeker.posX, target.posZ - seeker.posZ, seeker.rotationYaw, fov);
+	}
+
+	/**
+	 * Returns whether the horizontal offset (dx, dz) from the seeker is within the field of view around the seeker's yaw
+	 * @param yaw Seeker's rotationYaw, in degrees
+	 */
+	public static final boolean isTargetInFrontOf(double dx, double dz, float yaw, float fov) {
+		if (fov >= 180.0F) {
+			return true;
+		}
+		float f = yaw * 0.017453292F;
+		return isInFrontOf(dx, dz, -MathHelper.sin(f), MathHelper.cos(f), getFovCosine(fov));
+	}
+
+	/**
+	 * Compares the angle between the horizontal offset (dx, dz) and the unit facing vector (fx, fz)
+	 * against the cosine threshold without calling sqrt or any trigonometric functions.
+	 * Only uses its arguments, so it is safe to call from any thread.
+	 * An offset too small to have a direction is outside every cone narrower than a full circle; the original test
+	 * picked a random direction instead, which for narrow cones such as Leaping Blow's was almost always outside.
+	 * @param cos See {@link #getFovCosine(float)}
+	 */
+	public static boolean isInFrontOf(double dx, double dz, double fx, double fz, double cos) {
+		double lengthSq = dx * dx + dz * dz;
+		if (lengthSq < MIN_HORIZONTAL_DISTANCE_SQ) {
+			return cos <= -1.0D;
+		}
+		double dot = dx * fx + dz * fz;
+		double limit = cos * cos * lengthSq;
+		if (cos >= 0.0D) {
+			return dot > 0.0D && dot * dot > limit;
 		}
-		float yaw = (float)(Math.atan2(dz, dx) * 180.0D / Math.PI) - seeker.rotationYaw;
-		yaw = yaw - 90;
-		while (yaw < -180) { yaw += 360; }
-		while (yaw >= 180) { yaw -= 360; }
-		return yaw < fov && yaw > -fov;
+		return dot >= 0.0D || dot * dot < limit;
 	}
 
 	/**
@@ -310,6 +368,204 @@ public class TargetUtils
 		}
 	}
 
+	/** Maximum horizontal extent of the area fetched from the world for one group of queries, in blocks */
+	private static final double QUERY_GROUP_SPAN = 32.0D;
+
+	/**
+	 * Evaluates many target queries from one tick together, e.g. from every player using a skill in a
+	 * crowded arena. Queries close to each other are grouped, candidates for each group are fetched from
+	 * the world once into an {@link EntitySnapshot}, and each query then only visits the snapshot's grid
+	 * cells overlapping its own bounds; queries far apart are fetched separately.
+	 * Filters and line of sight checks are applied only to candidates passing the geometric tests.
+	 * @param queries All queries to evaluate; must all be in the same world
+	 * @return a list of targets for each query, in the same order as the queries
+	 */
+	public static final List<List<EntityLivingBase>> evaluateQueries(World world, List<TargetQuery> queries) {
+		List<List<EntityLivingBase>> results = new ArrayList<List<EntityLivingBase>>(queries.size());
+		List<AxisAlignedBB> groups = new ArrayList<AxisAlignedBB>();
+		int[] groupOf = new int[queries.size()];
+		for (int i = 0; i < queries.size(); ++i) {
+			AxisAlignedBB bounds = queries.get(i).bounds;
+			int g = 0;
+			for (; g < groups.size(); ++g) {
+				AxisAlignedBB union = groups.get(g).union(bounds);
+				if (union.maxX - union.minX <= QUERY_GROUP_SPAN && union.maxZ - union.minZ <= QUERY_GROUP_SPAN) {
+					groups.set(g, union);
+					break;
+				}
+			}
+			if (g == groups.size()) {
+				groups.add(bounds);
+			}
+			groupOf[i] = g;
+			results.add(null);
+		}
+		EntitySnapshot<EntityLivingBase> snapshot = new EntitySnapshot<EntityLivingBase>();
+		for (int g = 0; g < groups.size(); ++g) {
+			snapshot.fill(world.getEntitiesWithinAABB(EntityLivingBase.class, groups.get(g)));
+			for (int i = 0; i < queries.size(); ++i) {
+				if (groupOf[i] == g) {
+					results.set(i, queries.get(i).evaluate(snapshot));
+				}
+			}
+			snapshot.clear();
+		}
+		return results;
+	}
+
+	/**
+	 * A single target query for {@link TargetUtils#evaluateQueries}
+	 */
+	public static class TargetQuery
+	{
+		/** May be null, e.g. for an area of effect whose thrower is no longer loaded */
+		@Nullable
+		protected final EntityLivingBase seeker;
+		protected final List<Predicate<Entity>> filters;
+		/** Centers of the cubes searched along the seeker's look vector, as x, y, z triples; null for area and box queries */
+		@Nullable
+		protected final double[] steps;
+		/** Center of area queries */
+		protected final double x, y, z;
+		/** Radius of the area, half the edge length of each look cube, or negative for box queries */
+		protected final double radius;
+		/** Area from which candidates are fetched; box queries accept every candidate intersecting it */
+		protected final AxisAlignedBB bounds;
+		/** True if a horizontal cone was set by {@link #setCone} */
+		private boolean hasCone;
+		/** Apex, facing and field of view of the cone */
+		private double coneX, coneZ;
+		private float coneYaw, coneFov;
+		/** True if candidates inside the cone are kept, false if those outside it are kept */
+		private boolean coneInside;
+
+		protected TargetQuery(EntityLivingBase seeker, @Nullable double[] steps, double x, double y, double z, double radius, AxisAlignedBB bounds, List<Predicate<Entity>> filters) {
+			this.seeker = seeker;
+			this.steps = steps;
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.radius = radius;
+			this.bounds = bounds;
+			this.filters = filters;
+		}
+
+		/**
+		 * Additionally requires candidates to be inside, or outside, a horizontal cone, using the same test as {@link TargetUtils#isTargetInFrontOf}
+		 * @param yaw Facing of the cone's apex, in degrees
+		 */
+		public TargetQuery setCone(double x, double z, float yaw, float fov, boolean inside) {
+			this.hasCone = true;
+			this.coneX = x;
+			this.coneZ = z;
+			this.coneYaw = yaw;
+			this.coneFov = fov;
+			this.coneInside = inside;
+			return this;
+		}
+
+		/**
+		 * Query for the same targets as {@link TargetUtils#acquireAllLookTargets(EntityLivingBase, int, double, List)}:
+		 * visible targets in front of the seeker whose bounding box intersects any cube stepped along the seeker's look vector
+		 */
+		public static TargetQuery look(EntityLivingBase seeker, int distance, double radius, List<Predicate<Entity>> filters) {
+			if (distance < 0 || distance > MAX_DISTANCE) {
+				distance = MAX_DISTANCE;
+			}
+			double[] steps = getLookSteps(seeker.posX, seeker.posY + seeker.getEyeHeight() - 0.10000000149011612D, seeker.posZ, seeker.getLookVec(), distance);
+			return new TargetQuery(seeker, steps, seeker.posX, seeker.posY, seeker.posZ, radius, getLookBounds(steps, radius), filters);
+		}
+
+		/**
+		 * Returns the centers of the cubes searched by {@link TargetUtils#acquireAllLookTargets}, as x, y, z triples
+		 * @param x, y, z Starting point, i.e. just below the seeker's eyes
+		 */
+		static double[] getLookSteps(double x, double y, double z, Vec3d vec3, int distance) {
+			double[] steps = new double[3 * (distance + 1)];
+			int n = 0;
+			double distanceTraveled = 0;
+			while ((int) distanceTraveled < distance) {
+				x += vec3.x;
+				y += vec3.y;
+				z += vec3.z;
+				distanceTraveled += vec3.length();
+				if (n == steps.length) {
+					steps = Arrays.copyOf(steps, n * 2);
+				}
+				steps[n++] = x;
+				steps[n++] = y;
+				steps[n++] = z;
+			}
+			return Arrays.copyOf(steps, n);
+		}
+
+		/** Returns the union of the cubes of the given radius around each step */
+		static AxisAlignedBB getLookBounds(double[] steps, double radius) {
+			if (steps.length == 0) {
+				return new AxisAlignedBB(0.0D, 0.0D, 0.0D, 0.0D, 0.0D, 0.0D);
+			}
+			double minX = steps[0], minY = steps[1], minZ = steps[2], maxX = minX, maxY = minY, maxZ = minZ;
+			for (int k = 3; k < steps.length; k += 3) {
+				minX = Math.min(minX, steps[k]);
+				minY = Math.min(minY, steps[k + 1]);
+				minZ = Math.min(minZ, steps[k + 2]);
+				maxX = Math.max(maxX, steps[k]);
+				maxY = Math.max(maxY, steps[k + 1]);
+				maxZ = Math.max(maxZ, steps[k + 2]);
+			}
+			return new AxisAlignedBB(minX - radius, minY - radius, minZ - radius, maxX + radius, maxY + radius, maxZ + radius);
+		}
+
+		/** Query for all targets within a radius of a point in every direction, e.g. for area of effect damage */
+		public static TargetQuery area(EntityLivingBase seeker, double x, double y, double z, double radius, List<Predicate<Entity>> filters) {
+			AxisAlignedBB bounds = new AxisAlignedBB(x - radius, y - radius, z - radius, x + radius, y + radius, z + radius);
+			return new TargetQuery(seeker, null, x, y, z, radius, bounds, filters);
+		}
+
+		/**
+		 * Query for the same targets as {@link World#getEntitiesWithinAABB}: every candidate whose bounding box intersects the area
+		 */
+		public static TargetQuery box(@Nullable EntityLivingBase seeker, AxisAlignedBB area, List<Predicate<Entity>> filters) {
+			return new TargetQuery(seeker, null, area.minX, area.minY, area.minZ, -1.0D, area, filters);
+		}
+
+		/**
+		 * Returns the targets in the snapshot, which must contain every entity within this query's bounds,
+		 * in the order in which the snapshot was filled, i.e. the order in which the world returned them
+		 */
+		protected List<EntityLivingBase> evaluate(EntitySnapshot<EntityLivingBase> snapshot) {
+			int n = select(snapshot);
+			List<EntityLivingBase> targets = new ArrayList<EntityLivingBase>(n);
+			for (int k = 0; k < n; ++k) {
+				EntityLivingBase target = snapshot.getSelectedEntity(k);
+				if (isTargetValid(target, seeker, filters) && (steps == null || isTargetInSight(seeker, target))) {
+					targets.add(target);
+				}
+			}
+			return targets;
+		}
+
+		/**
+		 * Selects every candidate in the snapshot passing this query's geometric tests, in snapshot order,
+		 * before any filters or sight checks; see {@link EntitySnapshot#getSelected(int)}
+		 * @return the number of selected candidates
+		 */
+		public int select(EntitySnapshot<?> snapshot) {
+			// Snapshot positions are entity feet, which may lie outside the bounds even when the bounding box does not
+			double pad = World.MAX_ENTITY_RADIUS;
+			snapshot.selectNear(bounds.minX - pad, bounds.minZ - pad, bounds.maxX + pad, bounds.maxZ + pad);
+			if (hasCone) {
+				snapshot.retainInCone(coneX, coneZ, coneYaw, coneFov, coneInside);
+			}
+			if (steps != null) {
+				return snapshot.retainIntersectingCubes(steps, radius);
+			} else if (radius < 0.0D) {
+				return snapshot.retainIntersecting(bounds.minX, bounds.minY, bounds.minZ, bounds.maxX, bounds.maxY, bounds.maxZ);
+			}
+			return snapshot.retainInRadius(x, y, z, radius);
+		}
+	}
+
 	/**
 	 * Returns the default target selector predicates:
 	 * - {@link EntitySelectors#IS_ALIVE}
@@ -0,0 +1,180 @@
+/**
+    Copyright (C) <2017> <coolAlias>
+
+    This file is part of coolAlias' Dynamic Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package dynamicswordskills.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import dynamicswordskills.DynamicSwordSkills;
+import dynamicswordskills.ref.Config;
+
+/**
+ *
+ * Measures how much of each server tick is spent in DSS code and, while the smoothed time is
+ * above {@link Config#getTickBudget() the budget}, skips or postpones optional work in steps.
+ *
+ * Each {@link Level} includes the measures of all lower levels. None of them change what happens
+ * in the game: sounds are cosmetic, postponed combo HUD damage is merged into the next update, and
+ * postponed area hits keep the targets and damage found by the original sweep.
+ *
+ * Timing and level changes are only meant for the server thread; the level itself may be read anywhere.
+ *
+ */
+public class TickWatchdog
+{
+	/** Degradation steps, in order */
+	public static enum Level {
+		/** All work is performed */
+		NORMAL,
+		/** Server-side sounds and sound packets are skipped */
+		NO_COSMETICS,
+		/** Damage-only combo HUD updates are merged and sent at most every {@link TickWatchdog#HUD_INTERVAL} ticks */
+		THROTTLE_HUD,
+		/** Area of effect hits beyond {@link TickWatchdog#AOE_HITS_PER_TICK} are struck over the following ticks */
+		SPREAD_AOE;
+	}
+
+	private static final Level[] LEVELS = Level.values();
+
+	/** Minimum number of ticks between damage-only combo updates while throttled */
+	public static final int HUD_INTERVAL = 10;
+
+	/** Maximum number of area of effect hits per entity per tick while spreading */
+	public static final int AOE_HITS_PER_TICK = 4;
+
+	/** Weight of the current tick in the smoothed tick time */
+	private static final double SMOOTHING = 0.1D;
+
+	/** Number of consecutive ticks below the current level's threshold before stepping down */
+	private static final int RECOVERY_TICKS = 40;
+
+	private static volatile Level level = Level.NORMAL;
+
+	/** DSS time accumulated during the current tick, in nanoseconds */
+	private static long tickNanos;
+
+	/** Number of timed sections currently open; only the outermost one adds its time */
+	private static int depth;
+
+	/** Smoothed DSS time per tick, in milliseconds */
+	private static double average;
+
+	private static int recoveryTicks;
+
+	private static final long[] ticksAtLevel = new long[LEVELS.length];
+
+	private static final AtomicLong soundsSkipped = new AtomicLong();
+	private static final AtomicLong hudUpdatesMerged = new AtomicLong();
+	private static final AtomicLong aoeHitsDeferred = new AtomicLong();
+
+	/**
+	 * Opens a timed section, which may be nested inside another, e.g. a hurt event caused by a skill update
+	 * @return the start time to pass to {@link #stop(long)}
+	 */
+	public static long start() {
+		return (depth++ == 0 ? System.nanoTime() : 0L);
+	}
+
+	/** Closes the section; if it is the outermost one, adds the time since the start time to the current tick's DSS time */
+	public static void stop(long start) {
+		if (depth > 0 && --depth == 0) {
+			tickNanos += System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * Updates the smoothed DSS time with the tick that just ended and adjusts the level; call at the end of each server tick
+	 */
+	public static void onServerTickEnd() {
+		double ms = tickNanos / 1.0E6D;
+		tickNanos = 0;
+		// No section spans ticks, so a section left open by an exception must not stop all further timing
+		depth = 0;
+		average += (ms - average) * SMOOTHING;
+		++ticksAtLevel[level.ordinal()];
+		int budget = Config.getTickBudget();
+		Level target = Level.NORMAL;
+		if (budget > 0) {
+			// Each step begins at a further half of the budget above it
+			int steps = (int) Math.floor((average - budget) / (budget * 0.5D)) + 1;
+			target = LEVELS[Math.max(0, Math.min(steps, LEVELS.length - 1))];
+		}
+		if (target.ordinal() > level.ordinal()) {
+			setLevel(target);
+		} else if (target.ordinal() < level.ordinal()) {
+			if (++recoveryTicks >= RECOVERY_TICKS) {
+				setLevel(LEVELS[level.ordinal() - 1]);
+			}
+		} else {
+			recoveryTicks = 0;
+		}
+	}
+
+	private static void setLevel(Level next) {
+		DynamicSwordSkills.logger.debug(String.format("DSS tick time %.2f ms (budget %d ms): %s -> %s", average, Config.getTickBudget(), level, next));
+		level = next;
+		recoveryTicks = 0;
+	}
+
+	/** Returns the current degradation level */
+	public static Level getLevel() {
+		return level;
+	}
+
+	/** Returns true if optional sounds should be skipped, counting each skipped sound */
+	public static boolean skipSound() {
+		if (level.ordinal() >= Level.NO_COSMETICS.ordinal()) {
+			soundsSkipped.incrementAndGet();
+			return true;
+		}
+		return false;
+	}
+
+	/** Returns true if damage-only combo HUD updates should be merged */
+	public static boolean throttleHud() {
+		return level.ordinal() >= Level.THROTTLE_HUD.ordinal();
+	}
+
+	/** Call for each combo HUD update merged into a later one */
+	public static void onHudUpdateMerged() {
+		hudUpdatesMerged.incrementAndGet();
+	}
+
+	/** Returns the maximum number of area of effect hits an entity may strike this tick */
+	public static int getAoeHitsPerTick() {
+		return (level.ordinal() >= Level.SPREAD_AOE.ordinal() ? AOE_HITS_PER_TICK : Integer.MAX_VALUE);
+	}
+
+	/** Call with the number of area of effect hits postponed to a later tick */
+	public static void onAoeHitsDeferred(int hits) {
+		aoeHitsDeferred.addAndGet(hits);
+	}
+
+	/** Returns the smoothed DSS time per server tick, in milliseconds */
+	public static double getAverageTickTime() {
+		return average;
+	}
+
+	/** Returns the number of server ticks that ended at the given level */
+	public static long getTicksAtLevel(Level level) {
+		return ticksAtLevel[level.ordinal()];
+	}
+
+	public static long getSoundsSkipped() { return soundsSkipped.get(); }
+	public static long getHudUpdatesMerged() { return hudUpdatesMerged.get(); }
+	public static long getAoeHitsDeferred() { return aoeHitsDeferred.get(); }
+}
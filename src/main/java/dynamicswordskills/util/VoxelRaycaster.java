@@ -0,0 +1,311 @@
+/**
+    Copyright (C) <2017> <coolAlias>
+
+    This file is part of coolAlias' Dynamic Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package dynamicswordskills.util;
+
+import java.util.Arrays;
+
+import javax.annotation.Nullable;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.material.Material;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.RayTraceResult;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+
+/**
+ *
+ * Voxel traversal (Amanatides & Woo) block raycaster for skill line of sight and impact checks,
+ * visiting the same blocks as {@link World#rayTraceBlocks(Vec3d, Vec3d, boolean, boolean, boolean)}
+ * with returnLastUncollidableBlock false. Pass ignoreBlockWithoutBoundingBox false for the same
+ * results as {@link net.minecraft.entity.EntityLivingBase#canEntityBeSeen}, which is blocked by
+ * e.g. torches and tall grass.
+ *
+ * Full cubes are resolved directly from the traversal without touching the block's ray trace code;
+ * any other collidable block is passed to its own {@link IBlockState#collisionRayTrace} exactly as
+ * vanilla does. Whether each 16x16x16 chunk section is empty is cached for the current world tick
+ * so that runs through open air skip block lookups entirely. Unloaded chunks are treated as empty
+ * rather than being loaded.
+ *
+ * Instances reuse their position and result objects and are not thread-safe; see {@link TargetUtils#getVoxelRaycaster()}.
+ *
+ */
+public class VoxelRaycaster
+{
+	/** Same step limit as the vanilla ray trace */
+	private static final int MAX_STEPS = 200;
+
+	/** Number of entries in the direct-mapped section cache; must be a power of two */
+	private static final int CACHE_SIZE = 64;
+
+	private static final byte UNKNOWN = 0, EMPTY = 1, NOT_EMPTY = 2;
+
+	private final long[] cacheKeys = new long[CACHE_SIZE];
+	private final byte[] cacheStates = new byte[CACHE_SIZE];
+	private World cacheWorld;
+	private long cacheTime = Long.MIN_VALUE;
+
+	/** Most recently used chunk, to avoid a chunk provider lookup for every voxel */
+	private Chunk lastChunk;
+
+	private final BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+
+	private final Result result = new Result();
+
+	/** Start and end vectors, only allocated when a block must be passed to its own ray trace */
+	private Vec3d startVec, endVec;
+
+	/** Arguments of the current {@link #trace} call, read by {@link #testVoxel} */
+	private World world;
+	private double x0, y0, z0, x1, y1, z1;
+	private boolean stopOnLiquid, ignoreBlockWithoutBoundingBox;
+
+	private final VoxelTest worldTest = this::testVoxel;
+
+	/** Returns the result of the most recent trace; the object is reused by the next trace */
+	public Result getResult() {
+		return result;
+	}
+
+	/**
+	 * Traces from (x0, y0, z0) to (x1, y1, z1) through the world's blocks, ignoring blocks without a collision box
+	 * @param stopOnLiquid True to collide with source liquid blocks
+	 * @return true if a block was hit, in which case see {@link #getResult()}
+	 */
+	public boolean trace(World world, double x0, double y0, double z0, double x1, double y1, double z1, boolean stopOnLiquid) {
+		return trace(world, x0, y0, z0, x1, y1, z1, stopOnLiquid, true);
+	}
+
+	/**
+	 * Traces from (x0, y0, z0) to (x1, y1, z1) through the world's blocks
+	 * @param stopOnLiquid	True to collide with source liquid blocks
+	 * @param ignoreBlockWithoutBoundingBox	False to also collide with blocks that have no collision box, as line of sight checks do
+	 * @return true if a block was hit, in which case see {@link #getResult()}
+	 */
+	public boolean trace(World world, double x0, double y0, double z0, double x1, double y1, double z1, boolean stopOnLiquid, boolean ignoreBlockWithoutBoundingBox) {
+		result.reset();
+		startVec = null;
+		endVec = null;
+		if (Double.isNaN(x0) || Double.isNaN(y0) || Double.isNaN(z0) || Double.isNaN(x1) || Double.isNaN(y1) || Double.isNaN(z1)) {
+			return false;
+		}
+		refreshCache(world);
+		this.world = world;
+		this.x0 = x0;
+		this.y0 = y0;
+		this.z0 = z0;
+		this.x1 = x1;
+		this.y1 = y1;
+		this.z1 = z1;
+		this.stopOnLiquid = stopOnLiquid;
+		this.ignoreBlockWithoutBoundingBox = ignoreBlockWithoutBoundingBox;
+		boolean hit = traverse(x0, y0, z0, x1, y1, z1, worldTest);
+		this.world = null;
+		return hit;
+	}
+
+	/**
+	 * Visits each voxel along the segment in order until the test returns true
+	 * @return true if the test returned true for any voxel
+	 */
+	static boolean traverse(double x0, double y0, double z0, double x1, double y1, double z1, VoxelTest test) {
+		double dx = x1 - x0, dy = y1 - y0, dz = z1 - z0;
+		int x = MathHelper.floor(x0), y = MathHelper.floor(y0), z = MathHelper.floor(z0);
+		int endX = MathHelper.floor(x1), endY = MathHelper.floor(y1), endZ = MathHelper.floor(z1);
+		int stepX = (dx > 0.0D ? 1 : (dx < 0.0D ? -1 : 0));
+		int stepY = (dy > 0.0D ? 1 : (dy < 0.0D ? -1 : 0));
+		int stepZ = (dz > 0.0D ? 1 : (dz < 0.0D ? -1 : 0));
+		double tDeltaX = (stepX == 0 ? Double.POSITIVE_INFINITY : 1.0D / Math.abs(dx));
+		double tDeltaY = (stepY == 0 ? Double.POSITIVE_INFINITY : 1.0D / Math.abs(dy));
+		double tDeltaZ = (stepZ == 0 ? Double.POSITIVE_INFINITY : 1.0D / Math.abs(dz));
+		double tMaxX = (stepX > 0 ? (x + 1 - x0) / dx : (stepX < 0 ? (x - x0) / dx : Double.POSITIVE_INFINITY));
+		double tMaxY = (stepY > 0 ? (y + 1 - y0) / dy : (stepY < 0 ? (y - y0) / dy : Double.POSITIVE_INFINITY));
+		double tMaxZ = (stepZ > 0 ? (z + 1 - z0) / dz : (stepZ < 0 ? (z - z0) / dz : Double.POSITIVE_INFINITY));
+		EnumFacing entryFace = null;
+		double entryT = 0.0D;
+		for (int i = 0; i <= MAX_STEPS; ++i) {
+			if (test.test(x, y, z, entryFace, entryT)) {
+				return true;
+			} else if (x == endX && y == endY && z == endZ) {
+				break;
+			}
+			if (tMaxX < tMaxY && tMaxX < tMaxZ) {
+				if (tMaxX > 1.0D) { break; }
+				entryT = tMaxX;
+				x += stepX;
+				tMaxX += tDeltaX;
+				entryFace = (stepX > 0 ? EnumFacing.WEST : EnumFacing.EAST);
+			} else if (tMaxY < tMaxZ) {
+				if (tMaxY > 1.0D) { break; }
+				entryT = tMaxY;
+				y += stepY;
+				tMaxY += tDeltaY;
+				entryFace = (stepY > 0 ? EnumFacing.DOWN : EnumFacing.UP);
+			} else {
+				if (tMaxZ > 1.0D) { break; }
+				entryT = tMaxZ;
+				z += stepZ;
+				tMaxZ += tDeltaZ;
+				entryFace = (stepZ > 0 ? EnumFacing.NORTH : EnumFacing.SOUTH);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Tests a single voxel, storing the hit in {@link #result}
+	 * @param entryFace Face through which the segment entered the voxel, or null for the starting voxel
+	 * @param entryT    Fraction of the segment at which it entered the voxel
+	 */
+	private boolean testVoxel(int x, int y, int z, @Nullable EnumFacing entryFace, double entryT) {
+		if (y < 0 || y > 255 || isSectionEmpty(world, x, y, z)) {
+			return false;
+		}
+		pos.setPos(x, y, z);
+		IBlockState state = lastChunk.getBlockState(x, y, z);
+		Block block = state.getBlock();
+		if (!isTestable(state.getCollisionBoundingBox(world, pos) != Block.NULL_AABB, state.getMaterial() == Material.PORTAL, entryFace == null, ignoreBlockWithoutBoundingBox)
+				|| !block.canCollideCheck(state, stopOnLiquid))
+		{
+			return false;
+		}
+		if (entryFace != null && state.isFullCube() && state.getBoundingBox(world, pos) == Block.FULL_BLOCK_AABB) {
+			result.set(x, y, z, entryFace, x0 + (x1 - x0) * entryT, y0 + (y1 - y0) * entryT, z0 + (z1 - z0) * entryT, entryT);
+			return true;
+		}
+		if (startVec == null) {
+			startVec = new Vec3d(x0, y0, z0);
+			endVec = new Vec3d(x1, y1, z1);
+		}
+		RayTraceResult hit = state.collisionRayTrace(world, pos, startVec, endVec);
+		if (hit != null && hit.hitVec != null) {
+			double lengthSq = (x1 - x0) * (x1 - x0) + (y1 - y0) * (y1 - y0) + (z1 - z0) * (z1 - z0);
+			double t = (lengthSq < 1.0E-12D ? 0.0D : ((hit.hitVec.x - x0) * (x1 - x0) + (hit.hitVec.y - y0) * (y1 - y0) + (hit.hitVec.z - z0) * (z1 - z0)) / lengthSq);
+			result.set(x, y, z, hit.sideHit, hit.hitVec.x, hit.hitVec.y, hit.hitVec.z, t);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if a block should be passed to its ray trace, provided it also passes {@link Block#canCollideCheck}.
+	 * As in vanilla, portals are tested even without a collision box, except in the starting voxel.
+	 * @param isStart True for the voxel containing the start of the segment
+	 */
+	static boolean isTestable(boolean hasCollisionBox, boolean isPortal, boolean isStart, boolean ignoreBlockWithoutBoundingBox) {
+		return !ignoreBlockWithoutBoundingBox || hasCollisionBox || (isPortal && !isStart);
+	}
+
+	/** Clears the section cache whenever the world or world time changes */
+	private void refreshCache(World world) {
+		long time = world.getTotalWorldTime();
+		if (world != cacheWorld || time != cacheTime) {
+			cacheWorld = world;
+			cacheTime = time;
+			lastChunk = null;
+			Arrays.fill(cacheStates, UNKNOWN);
+		}
+	}
+
+	/** Returns true if the section containing the block is empty or its chunk is not loaded; also updates {@link #lastChunk} */
+	private boolean isSectionEmpty(World world, int x, int y, int z) {
+		int cx = x >> 4, sy = y >> 4, cz = z >> 4;
+		long key = ((long) cx & 0x3FFFFFFL) << 38 | ((long) cz & 0x3FFFFFFL) << 12 | (sy & 0xFFF);
+		int slot = (int)(key ^ (key >>> 29) ^ (key >>> 13)) & (CACHE_SIZE - 1);
+		if (lastChunk == null || lastChunk.x != cx || lastChunk.z != cz) {
+			lastChunk = world.getChunkProvider().getLoadedChunk(cx, cz);
+		}
+		if (cacheStates[slot] != UNKNOWN && cacheKeys[slot] == key) {
+			return cacheStates[slot] == EMPTY || lastChunk == null;
+		}
+		boolean empty = true;
+		if (lastChunk != null) {
+			ExtendedBlockStorage storage = lastChunk.getBlockStorageArray()[sy];
+			empty = (storage == Chunk.NULL_BLOCK_STORAGE || storage.isEmpty());
+		}
+		cacheKeys[slot] = key;
+		cacheStates[slot] = (empty ? EMPTY : NOT_EMPTY);
+		return empty;
+	}
+
+	/**
+	 * Callback for {@link VoxelRaycaster#traverse}
+	 */
+	static interface VoxelTest
+	{
+		/**
+		 * @param entryFace Face through which the segment entered the voxel, or null for the starting voxel
+		 * @param entryT    Fraction of the segment at which it entered the voxel
+		 * @return true to stop the traversal
+		 */
+		boolean test(int x, int y, int z, @Nullable EnumFacing entryFace, double entryT);
+	}
+
+	/**
+	 * Mutable block hit information, reused between traces
+	 */
+	public static class Result
+	{
+		private boolean isHit;
+		private int x, y, z;
+		private EnumFacing side;
+		private double hitX, hitY, hitZ;
+		private double fraction;
+
+		private void reset() {
+			isHit = false;
+			side = null;
+			fraction = 1.0D;
+		}
+
+		private void set(int x, int y, int z, EnumFacing side, double hitX, double hitY, double hitZ, double fraction) {
+			this.isHit = true;
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.side = side;
+			this.hitX = hitX;
+			this.hitY = hitY;
+			this.hitZ = hitZ;
+			this.fraction = fraction;
+		}
+
+		public boolean isHit() { return isHit; }
+		public int getBlockX() { return x; }
+		public int getBlockY() { return y; }
+		public int getBlockZ() { return z; }
+		public EnumFacing getSide() { return side; }
+		public double getHitX() { return hitX; }
+		public double getHitY() { return hitY; }
+		public double getHitZ() { return hitZ; }
+
+		/** Fraction of the traced segment at which the block was hit, or 1.0D if nothing was hit */
+		public double getFraction() { return fraction; }
+
+		/** Returns a new vanilla result for this hit, or null if nothing was hit */
+		@Nullable
+		public RayTraceResult toRayTraceResult() {
+			return (isHit ? new RayTraceResult(new Vec3d(hitX, hitY, hitZ), side, new BlockPos(x, y, z)) : null);
+		}
+	}
+}
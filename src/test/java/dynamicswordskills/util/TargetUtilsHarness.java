@@ -0,0 +1,648 @@
+/**
+    Copyright (C) <2017> <coolAlias>
+
+    This file is part of coolAlias' Dynamic Sword Skills Minecraft Mod; as such,
+    you can redistribute it and/or modify it under the terms of the GNU
+    General Public License as published by the Free Software Foundation,
+    either version 3 of the License, or (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package dynamicswordskills.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityLivingBase;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.RayTraceResult;
+import net.minecraft.util.math.Vec3d;
+
+/**
+ *
+ * Headless differential harness for the geometric parts of {@link TargetUtils}.
+ *
+ * Generates randomized synthetic layouts of stand-in entities and runs copies of the original
+ * algorithms for the look target queries, impact detection and field of view test alongside the
+ * production code, reporting any mismatches and the time taken by each side.
+ *
+ * Stand-ins are plain objects, so no world, client or GPU is needed; the entity queries assume line
+ * of sight is always clear and do not simulate blocks. The current engines call the geometric code of {@link TargetUtils},
+ * {@link TargetUtils.TargetQuery} and {@link SweptCollider} directly; only the entity lookups and
+ * target selectors are replaced by the stand-ins.
+ *
+ * The {@link VoxelRaycaster} traversal is likewise compared with a copy of the vanilla block ray trace
+ * over synthetic block grids, both with and without blocks that have no collision box. The copy is needed
+ * because vanilla's own trace reads real block states, which cannot be created without the Forge registries;
+ * it keeps vanilla's loop line for line and calls vanilla's {@link AxisAlignedBB#calculateIntercept} for each block.
+ *
+ * Run by the targetUtilsHarness Gradle task, on which check depends, so that any mismatch fails the build.
+ * Usage: java dynamicswordskills.util.TargetUtilsHarness [seed] [layouts]
+ *
+ */
+public class TargetUtilsHarness
+{
+	/** Maximum number of mismatches printed per comparison */
+	private static final int MAX_SAMPLES = 5;
+
+	public static void main(String[] args) {
+		long seed = (args.length > 0 ? Long.parseLong(args[0]) : 0L);
+		int layouts = (args.length > 1 ? Integer.parseInt(args[1]) : 200);
+		List<Report> reports = run(new Random(seed), layouts, REFERENCE_CONE, CURRENT_CONE, REFERENCE_IMPACT, CURRENT_IMPACT, REFERENCE_LOOK, CURRENT_LOOK);
+		reports.addAll(runRays(new Random(seed), layouts, REFERENCE_RAY, CURRENT_RAY));
+		int mismatches = 0;
+		for (Report report : reports) {
+			System.out.println(report);
+			mismatches += report.mismatches;
+		}
+		if (mismatches > 0) {
+			throw new AssertionError(mismatches + " mismatches");
+		}
+	}
+
+	/**
+	 * Runs each pair of engines over the same randomized layouts
+	 * @return one report per pair of engines
+	 */
+	public static List<Report> run(Random rand, int layouts, ConeEngine refCone, ConeEngine newCone, ImpactEngine refImpact, ImpactEngine newImpact, LookEngine refLook, LookEngine newLook) {
+		Report cone = new Report("isTargetInFrontOf");
+		Report impact = new Report("checkForImpact");
+		Report look = new Report("acquireAllLookTargets");
+		for (int n = 0; n < layouts; ++n) {
+			Body seeker = new Body(-1, 0.0D, 64.0D, 0.0D, 0.6D, 1.8D);
+			seeker.yaw = rand.nextFloat() * 360.0F - 180.0F;
+			seeker.pitch = rand.nextFloat() * 60.0F - 30.0F;
+			seeker.team = rand.nextInt(3);
+			Body[] bodies = generateLayout(rand, seeker, 16 + rand.nextInt(240));
+			float fov = (rand.nextBoolean() ? 30.0F + 15.0F * rand.nextInt(4) : 1.0F + rand.nextFloat() * 178.0F);
+			for (Body target : bodies) {
+				double dx = target.x - seeker.x;
+				double dz = target.z - seeker.z;
+				if (dx * dx + dz * dz < 1.0E-4D) {
+					continue; // reference result is random here
+				}
+				long t0 = System.nanoTime();
+				boolean expected = refCone.isInFrontOf(seeker, target, fov);
+				long t1 = System.nanoTime();
+				boolean actual = newCone.isInFrontOf(seeker, target, fov);
+				long t2 = System.nanoTime();
+				cone.record(expected == actual, t1 - t0, t2 - t1, "layout " + n + " fov " + fov + " target " + target + " expected " + expected);
+			}
+			double speed = 0.5D + rand.nextDouble() * 4.0D;
+			double mx = -MathHelper.sin(seeker.yaw * 0.017453292F) * speed;
+			double mz = MathHelper.cos(seeker.yaw * 0.017453292F) * speed;
+			double my = rand.nextDouble() * 0.2D - 0.1D;
+			double hitBox = rand.nextDouble() - 0.25D;
+			long t0 = System.nanoTime();
+			int expectedHit = refImpact.checkForImpact(seeker, mx, my, mz, bodies, hitBox);
+			long t1 = System.nanoTime();
+			int actualHit = newImpact.checkForImpact(seeker, mx, my, mz, bodies, hitBox);
+			long t2 = System.nanoTime();
+			impact.record(expectedHit == actualHit, t1 - t0, t2 - t1, "layout " + n + " expected " + expectedHit + " actual " + actualHit);
+			int distance = 4 + rand.nextInt(12);
+			double radius = (rand.nextBoolean() ? 1.0D : distance);
+			t0 = System.nanoTime();
+			Set<Integer> expectedTargets = refLook.acquireAllLookTargets(seeker, bodies, distance, radius);
+			t1 = System.nanoTime();
+			Set<Integer> actualTargets = newLook.acquireAllLookTargets(seeker, bodies, distance, radius);
+			t2 = System.nanoTime();
+			look.record(expectedTargets.equals(actualTargets), t1 - t0, t2 - t1, "layout " + n + " expected " + expectedTargets + " actual " + actualTargets);
+		}
+		List<Report> reports = new ArrayList<Report>();
+		reports.add(cone);
+		reports.add(impact);
+		reports.add(look);
+		return reports;
+	}
+
+	/**
+	 * Returns a random layout of stand-in entities around the seeker, including teammates,
+	 * mounts and passengers, invisible, dead and non-collidable entities
+	 */
+	public static Body[] generateLayout(Random rand, Body seeker, int count) {
+		Body[] bodies = new Body[count];
+		for (int i = 0; i < count; ++i) {
+			double spread = (rand.nextInt(4) == 0 ? 4.0D : 32.0D);
+			Body body = new Body(i, seeker.x + (rand.nextDouble() * 2.0D - 1.0D) * spread, seeker.y + rand.nextDouble() * 8.0D - 4.0D, seeker.z + (rand.nextDouble() * 2.0D - 1.0D) * spread, 0.3D + rand.nextDouble() * 1.2D, 0.5D + rand.nextDouble() * 2.5D);
+			body.team = rand.nextInt(3);
+			body.isInvisible = rand.nextInt(10) == 0;
+			body.isAlive = rand.nextInt(20) != 0;
+			body.canBeCollidedWith = rand.nextInt(20) != 0;
+			if (rand.nextInt(30) == 0) {
+				body.ridingId = seeker.id;
+			} else if (seeker.ridingId < 0 && rand.nextInt(60) == 0) {
+				seeker.ridingId = body.id;
+			}
+			bodies[i] = body;
+		}
+		return bodies;
+	}
+
+	/**
+	 * Stand-in for an entity, holding only the state used by the targeting code
+	 */
+	public static class Body
+	{
+		public final int id;
+		public final double x, y, z, width, height;
+		public float yaw, pitch;
+		public int team;
+		public int ridingId = -1;
+		public boolean isInvisible, isAlive = true, canBeCollidedWith = true;
+
+		public Body(int id, double x, double y, double z, double width, double height) {
+			this.id = id;
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.width = width;
+			this.height = height;
+		}
+
+		public double getEyeY() {
+			return y + height * 0.85D;
+		}
+
+		public AxisAlignedBB getBoundingBox() {
+			return new AxisAlignedBB(x - width / 2.0D, y, z - width / 2.0D, x + width / 2.0D, y + height, z + width / 2.0D);
+		}
+
+		/** Equivalent of the default target selectors, see {@link TargetUtils#getDefaultSelectors()} */
+		public boolean isValidTargetFor(Body seeker) {
+			return this != seeker && isAlive && canBeCollidedWith && ridingId != seeker.id && seeker.ridingId != id
+					&& (team == 0 || team != seeker.team) && !isInvisible;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("#%d(%.3f, %.3f, %.3f)", id, x, y, z);
+		}
+	}
+
+	public static interface ConeEngine
+	{
+		boolean isInFrontOf(Body seeker, Body target, float fov);
+	}
+
+	public static interface ImpactEngine
+	{
+		/** Returns the id of the body struck by the seeker moving by (dx, dy, dz), or -1 */
+		int checkForImpact(Body seeker, double dx, double dy, double dz, Body[] bodies, double hitBox);
+	}
+
+	public static interface LookEngine
+	{
+		Set<Integer> acquireAllLookTargets(Body seeker, Body[] bodies, int distance, double radius);
+	}
+
+	/** Copy of the original TargetUtils#isTargetInFrontOf */
+	public static final ConeEngine REFERENCE_CONE = new ConeEngine() {
+		@Override
+		public boolean isInFrontOf(Body seeker, Body target, float fov) {
+			double dx = target.x - seeker.x;
+			double dz;
+			for (dz = target.z - seeker.z; dx * dx + dz * dz < 1.0E-4D; dz = (Math.random() - Math.random()) * 0.01D) {
+				dx = (Math.random() - Math.random()) * 0.01D;
+			}
+			float yaw = (float)(Math.atan2(dz, dx) * 180.0D / Math.PI) - seeker.yaw;
+			yaw = yaw - 90;
+			while (yaw < -180) { yaw += 360; }
+			while (yaw >= 180) { yaw -= 360; }
+			return yaw < fov && yaw > -fov;
+		}
+	};
+
+	/** Calls {@link TargetUtils#isTargetInFrontOf(double, double, float, float)}, used by the entity version */
+	public static final ConeEngine CURRENT_CONE = new ConeEngine() {
+		@Override
+		public boolean isInFrontOf(Body seeker, Body target, float fov) {
+			return TargetUtils.isTargetInFrontOf(target.x - seeker.x, target.z - seeker.z, seeker.yaw, fov);
+		}
+	};
+
+	/** Copy of the original TargetUtils#checkForImpact, with the world's entity lookup replaced by a scan of the bodies */
+	public static final ImpactEngine REFERENCE_IMPACT = new ImpactEngine() {
+		@Override
+		public int checkForImpact(Body seeker, double dx, double dy, double dz, Body[] bodies, double hitBox) {
+			double posY = seeker.y + (seeker.height / 2.0D); // fix for Dash
+			Vec3d vec3 = new Vec3d(seeker.x, posY, seeker.z);
+			Vec3d vec31 = new Vec3d(seeker.x + dx, posY + dy, seeker.z + dz);
+			int target = -1;
+			AxisAlignedBB area = seeker.getBoundingBox().expand(dx, dy, dz).expand(1.0D, 1.0D, 1.0D);
+			List<Body> list = new ArrayList<Body>();
+			for (Body body : bodies) {
+				if (body.getBoundingBox().intersects(area)) {
+					list.add(body);
+				}
+			}
+			double d0 = 0.0D;
+			for (int i = 0; i < list.size(); ++i) {
+				Body entity1 = list.get(i);
+				if (entity1.canBeCollidedWith) {
+					AxisAlignedBB axisalignedbb = entity1.getBoundingBox().expand(hitBox, hitBox, hitBox);
+					RayTraceResult result1 = axisalignedbb.calculateIntercept(vec3, vec31);
+					if (result1 != null) {
+						double d1 = vec3.distanceTo(result1.hitVec);
+						if (d1 < d0 || d0 == 0.0D) {
+							target = entity1.id;
+							d0 = d1;
+						}
+					}
+				}
+			}
+			return target;
+		}
+	};
+
+	/** Runs the candidate loop of {@link SweptCollider#sweep} over an {@link EntitySnapshot}, using its candidate area and tie-break helper */
+	public static final ImpactEngine CURRENT_IMPACT = new ImpactEngine() {
+		@Override
+		public int checkForImpact(Body seeker, double dx, double dy, double dz, Body[] bodies, double hitBox) {
+			double y = seeker.y + (seeker.height / 2.0D);
+			AxisAlignedBB area = SweptCollider.getImpactArea(seeker.getBoundingBox(), dx, dy, dz);
+			EntitySnapshot<Entity> snapshot = new EntitySnapshot<Entity>();
+			for (Body body : bodies) {
+				AxisAlignedBB bb = body.getBoundingBox();
+				if (bb.intersects(area)) {
+					snapshot.add(null, body.id, body.x, body.y, body.z, bb.minX, bb.minY, bb.minZ, bb.maxX, bb.maxY, bb.maxZ);
+					snapshot.setAttributes(snapshot.size() - 1, 0, EntitySnapshot.ALIVE | (body.canBeCollidedWith ? EntitySnapshot.COLLIDABLE : 0));
+				}
+			}
+			snapshot.selectAll(EntitySnapshot.COLLIDABLE);
+			int n = snapshot.retainRayHits(seeker.x, y, seeker.z, dx, dy, dz, 0.0D, 0.0D, hitBox);
+			int target = -1;
+			double best = 1.0D;
+			for (int k = 0; k < n; ++k) {
+				double t = snapshot.getSelectedHitFraction(k);
+				if (SweptCollider.isCloserHit(t, best, 1.0D, target >= 0)) {
+					target = snapshot.getEntityId(snapshot.getSelected(k));
+					best = t;
+				}
+			}
+			return target;
+		}
+	};
+
+	/** Returns the look vector in the same way as Entity#getLook */
+	private static Vec3d getLookVec(Body seeker) {
+		float f = MathHelper.cos(-seeker.yaw * 0.017453292F - (float) Math.PI);
+		float f1 = MathHelper.sin(-seeker.yaw * 0.017453292F - (float) Math.PI);
+		float f2 = -MathHelper.cos(-seeker.pitch * 0.017453292F);
+		float f3 = MathHelper.sin(-seeker.pitch * 0.017453292F);
+		return new Vec3d((double)(f1 * f2), (double) f3, (double)(f * f2));
+	}
+
+	/** Copy of the original TargetUtils#acquireAllLookTargets, with the world's entity lookup replaced by a scan of the bodies */
+	public static final LookEngine REFERENCE_LOOK = new LookEngine() {
+		@Override
+		public Set<Integer> acquireAllLookTargets(Body seeker, Body[] bodies, int distance, double radius) {
+			Set<Integer> targets = new LinkedHashSet<Integer>();
+			Vec3d vec3 = getLookVec(seeker);
+			double targetX = seeker.x;
+			double targetY = seeker.getEyeY() - 0.10000000149011612D;
+			double targetZ = seeker.z;
+			double distanceTraveled = 0;
+			while ((int) distanceTraveled < distance) {
+				targetX += vec3.x;
+				targetY += vec3.y;
+				targetZ += vec3.z;
+				distanceTraveled += vec3.length();
+				AxisAlignedBB bb = new AxisAlignedBB(targetX-radius, targetY-radius, targetZ-radius, targetX+radius, targetY+radius, targetZ+radius);
+				for (Body target : bodies) {
+					if (target.getBoundingBox().intersects(bb) && target.isValidTargetFor(seeker) && REFERENCE_CONE.isInFrontOf(seeker, target, 60)) {
+						targets.add(target.id);
+					}
+				}
+			}
+			return targets;
+		}
+	};
+
+	/** Evaluates a {@link TargetUtils.TargetQuery#look} query over an {@link EntitySnapshot} of the bodies */
+	public static final LookEngine CURRENT_LOOK = new LookEngine() {
+		@Override
+		public Set<Integer> acquireAllLookTargets(Body seeker, Body[] bodies, int distance, double radius) {
+			EntitySnapshot<EntityLivingBase> snapshot = new EntitySnapshot<EntityLivingBase>();
+			for (Body body : bodies) {
+				snapshot.add(null, body.id, body.x, body.y, body.z, body.width / 2.0D, body.height / 2.0D);
+			}
+			snapshot.build();
+			double[] steps = TargetUtils.TargetQuery.getLookSteps(seeker.x, seeker.getEyeY() - 0.10000000149011612D, seeker.z, getLookVec(seeker), distance);
+			TargetUtils.TargetQuery query = new TargetUtils.TargetQuery(null, steps, seeker.x, seeker.y, seeker.z, radius, TargetUtils.TargetQuery.getLookBounds(steps, radius), null);
+			Set<Integer> targets = new LinkedHashSet<Integer>();
+			int n = query.select(snapshot);
+			for (int k = 0; k < n; ++k) {
+				Body target = bodies[snapshot.getEntityId(snapshot.getSelected(k))];
+				if (target.isValidTargetFor(seeker) && CURRENT_CONE.isInFrontOf(seeker, target, 60)) {
+					targets.add(target.id);
+				}
+			}
+			snapshot.clear();
+			return targets;
+		}
+	};
+
+	/** Edge length of the synthetic block grids, in blocks */
+	private static final int GRID_SIZE = 32;
+
+	/**
+	 * Runs both ray engines over randomized block grids, once ignoring blocks without a collision box as
+	 * skill impact checks do, and once including them as {@link net.minecraft.entity.EntityLivingBase#canEntityBeSeen} does
+	 * @return one report per mode
+	 */
+	public static List<Report> runRays(Random rand, int layouts, RayEngine refRay, RayEngine newRay) {
+		Report ignoring = new Report("rayTraceBlocks");
+		Report sight = new Report("canEntityBeSeen");
+		for (int n = 0; n < layouts; ++n) {
+			VoxelGrid grid = VoxelGrid.generate(rand);
+			for (int r = 0; r < 20; ++r) {
+				Vec3d start = new Vec3d(4.0D + rand.nextDouble() * (GRID_SIZE - 8), 4.0D + rand.nextDouble() * (GRID_SIZE - 8), 4.0D + rand.nextDouble() * (GRID_SIZE - 8));
+				double dx = rand.nextGaussian(), dy = rand.nextGaussian(), dz = rand.nextGaussian();
+				switch (rand.nextInt(6)) {
+				case 0: dx = 0.0D; break;
+				case 1: dy = 0.0D; break;
+				case 2: dz = 0.0D; break;
+				default: break;
+				}
+				double length = (1.0D + rand.nextDouble() * 16.0D) / Math.max(1.0E-3D, Math.sqrt(dx * dx + dy * dy + dz * dz));
+				Vec3d end = start.addVector(dx * length, dy * length, dz * length);
+				for (boolean ignore : new boolean[] {true, false}) {
+					long t0 = System.nanoTime();
+					RayTraceResult expected = refRay.rayTraceBlocks(grid, start, end, ignore);
+					long t1 = System.nanoTime();
+					RayTraceResult actual = newRay.rayTraceBlocks(grid, start, end, ignore);
+					long t2 = System.nanoTime();
+					(ignore ? ignoring : sight).record(isSameHit(expected, actual), t1 - t0, t2 - t1, "layout " + n + " from " + start + " to " + end + " expected " + expected + " actual " + actual);
+				}
+			}
+		}
+		List<Report> reports = new ArrayList<Report>();
+		reports.add(ignoring);
+		reports.add(sight);
+		return reports;
+	}
+
+	private static boolean isSameHit(RayTraceResult a, RayTraceResult b) {
+		if (a == null || b == null) {
+			return a == b;
+		}
+		return a.getBlockPos().equals(b.getBlockPos()) && a.sideHit == b.sideHit && a.hitVec.squareDistanceTo(b.hitVec) < 1.0E-12D;
+	}
+
+	/**
+	 * Stand-in for a block state, holding only the state used by the block ray traces
+	 */
+	public static class Voxel
+	{
+		/** Same bounds as Block#FULL_BLOCK_AABB, without loading the block registry */
+		private static final AxisAlignedBB FULL_CUBE = new AxisAlignedBB(0.0D, 0.0D, 0.0D, 1.0D, 1.0D, 1.0D);
+
+		public static final Voxel AIR = new Voxel(FULL_CUBE, false, false, false);
+		public static final Voxel STONE = new Voxel(FULL_CUBE, true, false, true);
+		/** Like tall grass or a torch: no collision box, but its own bounding box still blocks sight */
+		public static final Voxel PLANT = new Voxel(new AxisAlignedBB(0.1D, 0.0D, 0.1D, 0.9D, 0.8D, 0.9D), false, false, true);
+		public static final Voxel SLAB = new Voxel(new AxisAlignedBB(0.0D, 0.0D, 0.0D, 1.0D, 0.5D, 1.0D), true, false, true);
+		public static final Voxel PORTAL = new Voxel(new AxisAlignedBB(0.0D, 0.0D, 0.375D, 1.0D, 1.0D, 0.625D), false, true, true);
+		/** Like flowing water when not stopping on liquids: never passed to its ray trace */
+		public static final Voxel LIQUID = new Voxel(FULL_CUBE, false, false, false);
+
+		/** Equivalent of IBlockState#getBoundingBox, used by the block's ray trace */
+		public final AxisAlignedBB box;
+		public final boolean hasCollisionBox, isPortal, canCollide;
+
+		public Voxel(AxisAlignedBB box, boolean hasCollisionBox, boolean isPortal, boolean canCollide) {
+			this.box = box;
+			this.hasCollisionBox = hasCollisionBox;
+			this.isPortal = isPortal;
+			this.canCollide = canCollide;
+		}
+
+		public boolean isFullCube() {
+			return box == FULL_CUBE && hasCollisionBox;
+		}
+
+		/** Equivalent of Block#rayTrace as called by the default IBlockState#collisionRayTrace */
+		public RayTraceResult rayTrace(BlockPos pos, Vec3d start, Vec3d end) {
+			Vec3d vec3d = start.subtract((double) pos.getX(), (double) pos.getY(), (double) pos.getZ());
+			Vec3d vec3d1 = end.subtract((double) pos.getX(), (double) pos.getY(), (double) pos.getZ());
+			RayTraceResult result = box.calculateIntercept(vec3d, vec3d1);
+			return result == null ? null : new RayTraceResult(result.hitVec.addVector((double) pos.getX(), (double) pos.getY(), (double) pos.getZ()), result.sideHit, pos);
+		}
+	}
+
+	/**
+	 * Stand-in for a world's blocks; everything outside the grid is air
+	 */
+	public static class VoxelGrid
+	{
+		private final Voxel[] voxels = new Voxel[GRID_SIZE * GRID_SIZE * GRID_SIZE];
+
+		public static VoxelGrid generate(Random rand) {
+			VoxelGrid grid = new VoxelGrid();
+			Voxel[] types = {Voxel.STONE, Voxel.PLANT, Voxel.SLAB, Voxel.PORTAL, Voxel.LIQUID};
+			double density = 0.05D + rand.nextDouble() * 0.25D;
+			for (int i = 0; i < grid.voxels.length; ++i) {
+				grid.voxels[i] = (rand.nextDouble() < density ? types[rand.nextInt(types.length)] : Voxel.AIR);
+			}
+			return grid;
+		}
+
+		public Voxel get(int x, int y, int z) {
+			if (x < 0 || y < 0 || z < 0 || x >= GRID_SIZE || y >= GRID_SIZE || z >= GRID_SIZE) {
+				return Voxel.AIR;
+			}
+			return voxels[(y * GRID_SIZE + z) * GRID_SIZE + x];
+		}
+
+		public Voxel get(BlockPos pos) {
+			return get(pos.getX(), pos.getY(), pos.getZ());
+		}
+	}
+
+	public static interface RayEngine
+	{
+		/** Returns the first block hit between the points, or null; returnLastUncollidableBlock is always false */
+		RayTraceResult rayTraceBlocks(VoxelGrid grid, Vec3d start, Vec3d end, boolean ignoreBlockWithoutBoundingBox);
+	}
+
+	/** Copy of World#rayTraceBlocks(Vec3d, Vec3d, boolean, boolean, boolean), with block lookups replaced by the grid */
+	public static final RayEngine REFERENCE_RAY = new RayEngine() {
+		@Override
+		public RayTraceResult rayTraceBlocks(VoxelGrid grid, Vec3d vec31, Vec3d vec32, boolean ignoreBlockWithoutBoundingBox) {
+			int i = MathHelper.floor(vec32.x);
+			int j = MathHelper.floor(vec32.y);
+			int k = MathHelper.floor(vec32.z);
+			int l = MathHelper.floor(vec31.x);
+			int i1 = MathHelper.floor(vec31.y);
+			int j1 = MathHelper.floor(vec31.z);
+			BlockPos blockpos = new BlockPos(l, i1, j1);
+			Voxel iblockstate = grid.get(blockpos);
+			if ((!ignoreBlockWithoutBoundingBox || iblockstate.hasCollisionBox) && iblockstate.canCollide) {
+				RayTraceResult raytraceresult = iblockstate.rayTrace(blockpos, vec31, vec32);
+				if (raytraceresult != null) {
+					return raytraceresult;
+				}
+			}
+			int k1 = 200;
+			while (k1-- >= 0) {
+				if (Double.isNaN(vec31.x) || Double.isNaN(vec31.y) || Double.isNaN(vec31.z)) {
+					return null;
+				}
+				if (l == i && i1 == j && j1 == k) {
+					return null;
+				}
+				boolean flag2 = true;
+				boolean flag = true;
+				boolean flag1 = true;
+				double d0 = 999.0D;
+				double d1 = 999.0D;
+				double d2 = 999.0D;
+				if (i > l) {
+					d0 = (double) l + 1.0D;
+				} else if (i < l) {
+					d0 = (double) l + 0.0D;
+				} else {
+					flag2 = false;
+				}
+				if (j > i1) {
+					d1 = (double) i1 + 1.0D;
+				} else if (j < i1) {
+					d1 = (double) i1 + 0.0D;
+				} else {
+					flag = false;
+				}
+				if (k > j1) {
+					d2 = (double) j1 + 1.0D;
+				} else if (k < j1) {
+					d2 = (double) j1 + 0.0D;
+				} else {
+					flag1 = false;
+				}
+				double d3 = 999.0D;
+				double d4 = 999.0D;
+				double d5 = 999.0D;
+				double d6 = vec32.x - vec31.x;
+				double d7 = vec32.y - vec31.y;
+				double d8 = vec32.z - vec31.z;
+				if (flag2) {
+					d3 = (d0 - vec31.x) / d6;
+				}
+				if (flag) {
+					d4 = (d1 - vec31.y) / d7;
+				}
+				if (flag1) {
+					d5 = (d2 - vec31.z) / d8;
+				}
+				if (d3 == -0.0D) {
+					d3 = -1.0E-4D;
+				}
+				if (d4 == -0.0D) {
+					d4 = -1.0E-4D;
+				}
+				if (d5 == -0.0D) {
+					d5 = -1.0E-4D;
+				}
+				EnumFacing enumfacing;
+				if (d3 < d4 && d3 < d5) {
+					enumfacing = i > l ? EnumFacing.WEST : EnumFacing.EAST;
+					vec31 = new Vec3d(d0, vec31.y + d7 * d3, vec31.z + d8 * d3);
+				} else if (d4 < d5) {
+					enumfacing = j > i1 ? EnumFacing.DOWN : EnumFacing.UP;
+					vec31 = new Vec3d(vec31.x + d6 * d4, d1, vec31.z + d8 * d4);
+				} else {
+					enumfacing = k > j1 ? EnumFacing.NORTH : EnumFacing.SOUTH;
+					vec31 = new Vec3d(vec31.x + d6 * d5, vec31.y + d7 * d5, d2);
+				}
+				l = MathHelper.floor(vec31.x) - (enumfacing == EnumFacing.EAST ? 1 : 0);
+				i1 = MathHelper.floor(vec31.y) - (enumfacing == EnumFacing.UP ? 1 : 0);
+				j1 = MathHelper.floor(vec31.z) - (enumfacing == EnumFacing.SOUTH ? 1 : 0);
+				blockpos = new BlockPos(l, i1, j1);
+				Voxel iblockstate1 = grid.get(blockpos);
+				if (!ignoreBlockWithoutBoundingBox || iblockstate1.isPortal || iblockstate1.hasCollisionBox) {
+					if (iblockstate1.canCollide) {
+						RayTraceResult raytraceresult1 = iblockstate1.rayTrace(blockpos, vec31, vec32);
+						if (raytraceresult1 != null) {
+							return raytraceresult1;
+						}
+					}
+				}
+			}
+			return null;
+		}
+	};
+
+	/** Runs {@link VoxelRaycaster#traverse} with the same block filter and full cube shortcut as {@link VoxelRaycaster#trace} */
+	public static final RayEngine CURRENT_RAY = new RayEngine() {
+		@Override
+		public RayTraceResult rayTraceBlocks(VoxelGrid grid, Vec3d start, Vec3d end, boolean ignoreBlockWithoutBoundingBox) {
+			RayTraceResult[] hit = new RayTraceResult[1];
+			VoxelRaycaster.traverse(start.x, start.y, start.z, end.x, end.y, end.z, (x, y, z, entryFace, entryT) -> {
+				Voxel voxel = grid.get(x, y, z);
+				if (!VoxelRaycaster.isTestable(voxel.hasCollisionBox, voxel.isPortal, entryFace == null, ignoreBlockWithoutBoundingBox) || !voxel.canCollide) {
+					return false;
+				}
+				BlockPos pos = new BlockPos(x, y, z);
+				if (entryFace != null && voxel.isFullCube()) {
+					hit[0] = new RayTraceResult(new Vec3d(start.x + (end.x - start.x) * entryT, start.y + (end.y - start.y) * entryT, start.z + (end.z - start.z) * entryT), entryFace, pos);
+				} else {
+					hit[0] = voxel.rayTrace(pos, start, end);
+				}
+				return hit[0] != null;
+			});
+			return hit[0];
+		}
+	};
+
+	/**
+	 * Mismatch count and timing for one pair of engines
+	 */
+	public static class Report
+	{
+		public final String name;
+		public int cases;
+		public int mismatches;
+		public long referenceNanos;
+		public long currentNanos;
+		public final List<String> samples = new ArrayList<String>();
+
+		public Report(String name) {
+			this.name = name;
+		}
+
+		private void record(boolean match, long referenceTime, long currentTime, String description) {
+			++cases;
+			referenceNanos += referenceTime;
+			currentNanos += currentTime;
+			if (!match) {
+				++mismatches;
+				if (samples.size() < MAX_SAMPLES) {
+					samples.add(description);
+				}
+			}
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder(String.format("%-24s cases: %7d  mismatches: %5d  reference: %8.3f ms  current: %8.3f ms",
+					name, cases, mismatches, referenceNanos / 1.0E6D, currentNanos / 1.0E6D));
+			for (String sample : samples) {
+				sb.append("\n    ").append(sample);
+			}
+			return sb.toString();
+		}
+	}
+}